@@ -4,12 +4,21 @@ public class Circle extends Shape {
     
     public Circle(float radius) {
         this.radius = radius;
-        calculateArea();
     }
     
     @Override
-    public void calculateArea() {
-        area = (float) (Math.PI * radius * radius);
+    protected float computeArea() {
+        return (float) (Math.PI * radius * radius);
+    }
+    
+    @Override
+    protected float computePerimeter() {
+        return (float) (2 * Math.PI * radius);
+    }
+    
+    @Override
+    protected Bounds computeBounds() {
+        return new Bounds(2 * radius, 2 * radius);
     }
     
     @Override
@@ -20,4 +29,9 @@ public class Circle extends Shape {
     public float getRadius() {
         return radius;
     }
+    
+    public void setRadius(float radius) {
+        this.radius = radius;
+        invalidate();
+    }
 }
\ No newline at end of file
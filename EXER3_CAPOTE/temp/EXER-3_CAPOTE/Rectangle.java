@@ -6,12 +6,21 @@ public class Rectangle extends Shape {
     public Rectangle(float length, float width) {
         this.length = length;
         this.width = width;
-        calculateArea();
     }
     
     @Override
-    public void calculateArea() {
-        area = length * width;
+    protected float computeArea() {
+        return length * width;
+    }
+    
+    @Override
+    protected float computePerimeter() {
+        return 2 * (length + width);
+    }
+    
+    @Override
+    protected Bounds computeBounds() {
+        return new Bounds(length, width);
     }
     
     @Override
@@ -26,4 +35,14 @@ public class Rectangle extends Shape {
     public float getWidth() {
         return width;
     }
+    
+    public void setLength(float length) {
+        this.length = length;
+        invalidate();
+    }
+    
+    public void setWidth(float width) {
+        this.width = width;
+        invalidate();
+    }
 }
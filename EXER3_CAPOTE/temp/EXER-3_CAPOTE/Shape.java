@@ -1,11 +1,84 @@
 // Shape.java - Base class for all shapes
+//
+// Area, perimeter and bounding box are worked out on first use and cached.
+// Subclasses supply the formulas and call invalidate() whenever a dimension
+// changes, so a shape that is never asked for its area never computes it, and
+// a resized shape never reports a stale one.
 public abstract class Shape {
-    protected float area;
-    
-    public abstract void calculateArea();
+    private static final int AREA = 1;
+    private static final int PERIMETER = 2;
+    private static final int BOUNDS = 4;
+
+    private float area;
+    private float perimeter;
+    private Bounds bounds;
+    private int cached; // which of the values above are up to date
+
+    // Width and height of the smallest axis-aligned box around a shape
+    public static final class Bounds {
+        private final float width;
+        private final float height;
+
+        public Bounds(float width, float height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        public float getWidth() {
+            return width;
+        }
+
+        public float getHeight() {
+            return height;
+        }
+
+        @Override
+        public String toString() {
+            return width + " x " + height;
+        }
+    }
+
+    protected abstract float computeArea();
+    protected abstract float computePerimeter();
+    protected abstract Bounds computeBounds();
     public abstract void displayInfo();
-    
+
+    public float getArea() {
+        if ((cached & AREA) == 0) {
+            area = computeArea();
+            cached |= AREA;
+        }
+        return area;
+    }
+
+    public float getPerimeter() {
+        if ((cached & PERIMETER) == 0) {
+            perimeter = computePerimeter();
+            cached |= PERIMETER;
+        }
+        return perimeter;
+    }
+
+    public Bounds getBounds() {
+        if ((cached & BOUNDS) == 0) {
+            bounds = computeBounds();
+            cached |= BOUNDS;
+        }
+        return bounds;
+    }
+
+    // Recomputes the area now instead of on first use
+    public void calculateArea() {
+        cached &= ~AREA;
+        getArea();
+    }
+
+    // Call after changing any dimension
+    protected void invalidate() {
+        cached = 0;
+    }
+
     public void displayArea() {
-        System.out.println("Area: " + area);
+        System.out.println("Area: " + getArea());
     }
 }
\ No newline at end of file
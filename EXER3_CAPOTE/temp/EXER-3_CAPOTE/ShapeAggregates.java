@@ -0,0 +1,298 @@
+// ShapeAggregates.java - Total, min, max and mean area, overall and per shape type
+//
+// Large collections are reduced with fork/join. The work is always cut into the
+// same blocks of LEAF shapes and merged in the same tree, which depends only on
+// the number of shapes, never on how many threads run it. Sums are compensated
+// (Kahan-Babuska / Neumaier) in double. So the result is the same on one core or
+// sixty-four, and far closer to the exact total than a running float sum, which
+// stops growing once each area is small next to the total.
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class ShapeAggregates {
+    private static final int LEAF = 4096;
+
+    // Area of each shape, and the key its statistics are grouped under (its class, or
+    // its ShapeStore.Kind); keys are compared by identity and only named at the end
+    interface Source {
+        int size();
+        float area(int index);
+        Object type(int index);
+    }
+
+    // Count, compensated sum, min and max of a group of areas
+    public static class Stats {
+        private long count;
+        private double sum;
+        private double compensation;
+        private float min = Float.POSITIVE_INFINITY;
+        private float max = Float.NEGATIVE_INFINITY;
+
+        void add(float area) {
+            count++;
+            addToSum(area);
+            min = Math.min(min, area);
+            max = Math.max(max, area);
+        }
+
+        void merge(Stats other) {
+            count += other.count;
+            addToSum(other.sum);
+            compensation += other.compensation;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        private void addToSum(double value) {
+            double t = sum + value;
+            if (Math.abs(sum) >= Math.abs(value)) {
+                compensation += (sum - t) + value;
+            } else {
+                compensation += (value - t) + sum;
+            }
+            sum = t;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getTotal() {
+            return sum + compensation;
+        }
+
+        // Smallest and largest area; NaN when there are no shapes
+        public float getMin() {
+            return count == 0 ? Float.NaN : min;
+        }
+
+        public float getMax() {
+            return count == 0 ? Float.NaN : max;
+        }
+
+        public double getMean() {
+            return count == 0 ? Double.NaN : getTotal() / count;
+        }
+    }
+
+    private final Stats overall;
+    private final Map<String, Stats> byType;
+
+    private ShapeAggregates(Stats overall, Map<String, Stats> byType) {
+        this.overall = overall;
+        this.byType = Collections.unmodifiableMap(byType);
+    }
+
+    public static ShapeAggregates of(Shape[] shapes) {
+        return of(shapes, ForkJoinPool.commonPool());
+    }
+
+    public static ShapeAggregates of(Shape[] shapes, ForkJoinPool pool) {
+        return compute(new Source() {
+            public int size() { return shapes.length; }
+            public float area(int index) { return shapes[index].getArea(); }
+            public Object type(int index) { return shapes[index].getClass(); }
+        }, pool);
+    }
+
+    // Lists should be random access (e.g. ArrayList); each shape is fetched by index
+    public static ShapeAggregates of(List<? extends Shape> shapes) {
+        return compute(new Source() {
+            public int size() { return shapes.size(); }
+            public float area(int index) { return shapes.get(index).getArea(); }
+            public Object type(int index) { return shapes.get(index).getClass(); }
+        }, ForkJoinPool.commonPool());
+    }
+
+    // Groups by ShapeStore.Kind, under the same class names as the other overloads, so results
+    // from shapes and from a store merge into one group per type. Each kind's area column is
+    // reduced on its own, in the same fixed blocks, and the overall figures merge the kinds
+    // in Kind order.
+    public static ShapeAggregates of(ShapeStore store, ForkJoinPool pool) {
+        store.computeAreas();
+        Stats overall = new Stats();
+        TreeMap<String, Stats> byType = new TreeMap<>();
+        for (ShapeStore.Kind kind : ShapeStore.Kind.values()) {
+            int n = store.count(kind);
+            if (n == 0) {
+                continue;
+            }
+            Stats stats = pool.invoke(new ColumnTask(store.areaColumn(kind), 0, (n + LEAF - 1) / LEAF, n));
+            overall.merge(stats);
+            byType.put(kind.typeName(), stats);
+        }
+        return new ShapeAggregates(overall, byType);
+    }
+
+    private static ShapeAggregates compute(Source source, ForkJoinPool pool) {
+        int blocks = (source.size() + LEAF - 1) / LEAF;
+        if (blocks == 0) {
+            return new ShapeAggregates(new Stats(), new TreeMap<>());
+        }
+        Block result = pool.invoke(new BlockTask(source, 0, blocks));
+        TreeMap<String, Stats> byName = new TreeMap<>();
+        for (Map.Entry<Object, Stats> e : result.byType.entrySet()) {
+            Object type = e.getKey();
+            String name = type instanceof Class ? ((Class<?>) type).getSimpleName() : type.toString();
+            byName.computeIfAbsent(name, k -> new Stats()).merge(e.getValue());
+        }
+        return new ShapeAggregates(result.overall, byName);
+    }
+
+    private static final class Block {
+        final Stats overall = new Stats();
+        final HashMap<Object, Stats> byType = new HashMap<>();
+
+        void merge(Block other) {
+            overall.merge(other.overall);
+            for (Map.Entry<Object, Stats> e : other.byType.entrySet()) {
+                byType.computeIfAbsent(e.getKey(), k -> new Stats()).merge(e.getValue());
+            }
+        }
+    }
+
+    // Reduces blocks [from, to); the split point depends only on the block range
+    private static final class BlockTask extends RecursiveTask<Block> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Source source;
+        private final int from;
+        private final int to;
+
+        BlockTask(Source source, int from, int to) {
+            this.source = source;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Block compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                BlockTask right = new BlockTask(source, mid, to);
+                right.fork();
+                Block left = new BlockTask(source, from, mid).compute();
+                left.merge(right.join());
+                return left;
+            }
+            Block block = new Block();
+            int end = Math.min(source.size(), to * LEAF);
+            // Only a few types: a linear identity scan beats a hash lookup per shape
+            Object[] types = new Object[4];
+            Stats[] typeStats = new Stats[4];
+            int typeCount = 0;
+            for (int i = from * LEAF; i < end; i++) {
+                float area = source.area(i);
+                block.overall.add(area);
+                Object type = source.type(i);
+                int t = 0;
+                while (t < typeCount && types[t] != type) {
+                    t++;
+                }
+                if (t == typeCount) {
+                    if (t == types.length) {
+                        types = Arrays.copyOf(types, t * 2);
+                        typeStats = Arrays.copyOf(typeStats, t * 2);
+                    }
+                    types[t] = type;
+                    typeStats[t] = new Stats();
+                    typeCount++;
+                }
+                typeStats[t].add(area);
+            }
+            for (int t = 0; t < typeCount; t++) {
+                block.byType.put(types[t], typeStats[t]);
+            }
+            return block;
+        }
+    }
+
+    // Reduces blocks [from, to) of one float column holding n areas
+    private static final class ColumnTask extends RecursiveTask<Stats> {
+        private static final long serialVersionUID = 1L;
+
+        private final float[] areas;
+        private final int from;
+        private final int to;
+        private final int n;
+
+        ColumnTask(float[] areas, int from, int to, int n) {
+            this.areas = areas;
+            this.from = from;
+            this.to = to;
+            this.n = n;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                ColumnTask right = new ColumnTask(areas, mid, to, n);
+                right.fork();
+                Stats left = new ColumnTask(areas, from, mid, n).compute();
+                left.merge(right.join());
+                return left;
+            }
+            Stats stats = new Stats();
+            for (int i = from * LEAF, end = Math.min(n, to * LEAF); i < end; i++) {
+                stats.add(areas[i]);
+            }
+            return stats;
+        }
+    }
+
+    // Statistics of both groups of shapes together, e.g. consecutive chunks of a stream
+    public ShapeAggregates merge(ShapeAggregates other) {
+        Stats all = new Stats();
+        all.merge(overall);
+        all.merge(other.overall);
+        TreeMap<String, Stats> types = new TreeMap<>();
+        for (Map<String, Stats> part : List.of(byType, other.byType)) {
+            for (Map.Entry<String, Stats> e : part.entrySet()) {
+                types.computeIfAbsent(e.getKey(), k -> new Stats()).merge(e.getValue());
+            }
+        }
+        return new ShapeAggregates(all, types);
+    }
+
+    public long getCount() {
+        return overall.getCount();
+    }
+
+    public double getTotal() {
+        return overall.getTotal();
+    }
+
+    public float getMin() {
+        return overall.getMin();
+    }
+
+    public float getMax() {
+        return overall.getMax();
+    }
+
+    public double getMean() {
+        return overall.getMean();
+    }
+
+    // Statistics per shape type, in name order
+    public Map<String, Stats> getByType() {
+        return byType;
+    }
+
+    public void displayInfo() {
+        System.out.println("Shapes: " + getCount() + ", Total area: " + getTotal());
+        System.out.println("Min: " + getMin() + ", Max: " + getMax() + ", Mean: " + getMean());
+        for (Map.Entry<String, Stats> e : byType.entrySet()) {
+            Stats s = e.getValue();
+            System.out.println("  " + e.getKey() + " - Count: " + s.getCount() + ", Total: " + s.getTotal()
+                    + ", Min: " + s.getMin() + ", Max: " + s.getMax() + ", Mean: " + s.getMean());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+// ShapeBenchmark.java - Compares area computation over Shape objects and over a ShapeStore
+//
+// Usage: java ShapeBenchmark [count]
+//        java --add-modules jdk.incubator.vector ShapeBenchmark [count]   (see ShapeKernels)
+//
+// Every path computes every area and the total over the same random mix of the four
+// shape kinds. The object path is the ShapeTester loop: a Shape[] with a virtual
+// calculateArea() per element, reading getArea() afterwards. The store is measured
+// with the scalar kernels and, when they load, the Vector API kernels, both for the
+// whole job and for the area and sum kernels alone. Each path is warmed up and the
+// best of several runs is printed as ns per shape.
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ShapeBenchmark {
+    private static final int RUNS = 7;
+
+    interface Run {
+        double run();
+    }
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Random random = new Random(42);
+        Shape[] shapes = new Shape[count];
+        ShapeStore store = new ShapeStore(ShapeKernels.scalar());
+        ShapeStore vectorStore = new ShapeStore(ShapeKernels.best());
+        for (int i = 0; i < count; i++) {
+            float a = 1 + random.nextFloat() * 10;
+            float b = 1 + random.nextFloat() * 10;
+            switch (random.nextInt(4)) {
+                case 0: shapes[i] = new Circle(a); break;
+                case 1: shapes[i] = new Rectangle(a, b); break;
+                case 2: shapes[i] = new Square(a); break;
+                default: shapes[i] = new Triangle(a, b); break;
+            }
+            store.add(shapes[i]);
+            vectorStore.add(shapes[i]);
+        }
+
+        System.out.println("path,shapes,ns/shape,total");
+        measure("objects", count, () -> {
+            double total = 0;
+            for (Shape shape : shapes) {
+                shape.calculateArea();
+                total += shape.getArea();
+            }
+            return total;
+        });
+        measure("store-scalar", count, () -> {
+            store.computeAreas();
+            return store.totalArea();
+        });
+        ShapeKernels best = ShapeKernels.best();
+        if (best != ShapeKernels.scalar()) {
+            measure("store-" + best.name(), count, () -> {
+                vectorStore.computeAreas();
+                return vectorStore.totalArea();
+            });
+            for (int i = 0; i < count; i++) {
+                if (Float.floatToIntBits(store.area(i)) != Float.floatToIntBits(vectorStore.area(i))) {
+                    throw new AssertionError("Area mismatch at " + i + ": " + store.area(i) + " vs " + vectorStore.area(i));
+                }
+            }
+        } else {
+            System.out.println("# Vector API kernels not loaded; run with --add-modules jdk.incubator.vector");
+        }
+
+        // Compensated fork/join aggregates: one worker against the common pool. The block
+        // tree is fixed, so both must produce the same bits.
+        ForkJoinPool single = new ForkJoinPool(1);
+        double[] totals = new double[2];
+        measure("aggregates-1thread", count, () -> totals[0] = ShapeAggregates.of(shapes, single).getTotal());
+        measure("aggregates-" + ForkJoinPool.getCommonPoolParallelism() + "threads", count,
+                () -> totals[1] = ShapeAggregates.of(shapes, ForkJoinPool.commonPool()).getTotal());
+        single.shutdown();
+        if (Double.doubleToLongBits(totals[0]) != Double.doubleToLongBits(totals[1])) {
+            throw new AssertionError("Aggregate totals differ: " + totals[0] + " vs " + totals[1]);
+        }
+
+        // The kernels alone on one column of radii, against the scalar loop
+        float[] radius = new float[count];
+        float[] area = new float[count];
+        for (int i = 0; i < count; i++) {
+            radius[i] = 1 + random.nextFloat() * 10;
+        }
+        for (ShapeKernels kernels : new ShapeKernels[] {ShapeKernels.scalar(), best}) {
+            measure("circleAreas-" + kernels.name(), count, () -> {
+                kernels.circleAreas(radius, area, count);
+                return area[count - 1];
+            });
+            measure("rectangleAreas-" + kernels.name(), count, () -> {
+                kernels.rectangleAreas(radius, radius, area, count);
+                return area[count - 1];
+            });
+            measure("sum-" + kernels.name(), count, () -> kernels.sum(radius, count));
+            if (kernels == best) {
+                break;
+            }
+        }
+    }
+
+    static void measure(String path, int count, Run run) {
+        double total = 0;
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            total = run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%s,%d,%.3f,%.6e%n", path, count, (double) best / count, total);
+    }
+}
@@ -0,0 +1,482 @@
+// ShapeFiles.java - Streaming reader and writer for large shape datasets
+//
+// Usage: java ShapeFiles generate <file> <count>    (.csv writes CSV, anything else binary)
+//        java ShapeFiles sum <file> [--objects]
+//
+// Formats:
+//   binary  [int magic "SHP1"] then per shape [byte kind][float dim]... little-endian;
+//           kind is the ShapeStore.Kind ordinal, circles and squares have one dim,
+//           rectangles and triangles two
+//   CSV     one shape per line: circle,3 / rectangle,5,4 / square,5 / triangle,6,8
+//           (blank lines, lines starting with # and a header before the first shape are skipped)
+//
+// Files are read through one reused direct buffer filled by FileChannel.read, so
+// memory stays the same for a 1 KB file and a 100 GB one. (Mapped windows would
+// read the same way, but Java cannot release a mapping until the GC gets to it.)
+// Records are handed to a Visitor as they are decoded, with no per-shape objects
+// unless the visitor makes them. Aggregator pipes them into ShapeAggregates one
+// fixed-size ShapeStore chunk at a time.
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+public class ShapeFiles {
+    static final int MAGIC = 0x31504853; // "SHP1" read little-endian
+    private static final int BUFFER_BYTES = 1 << 20;
+    private static final int MAX_BINARY_RECORD = 1 + 2 * 4;
+    private static final int CHUNK = 1 << 20;
+    private static final ShapeStore.Kind[] KINDS = ShapeStore.Kind.values();
+    private static final float[] POWERS_OF_TEN = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+
+    // Receives shapes in file order
+    public interface Visitor {
+        void circle(float radius);
+        void rectangle(float length, float width);
+        void square(float side);
+        void triangle(float base, float height);
+    }
+
+    // Bytes and shapes read, and how long it took
+    public static final class ReadStats {
+        private long bytes;
+        private long shapes;
+        private long nanos;
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getShapes() {
+            return shapes;
+        }
+
+        public double getSeconds() {
+            return nanos / 1e9;
+        }
+
+        public double getMegabytesPerSecond() {
+            return nanos == 0 ? 0 : bytes / 1e6 / getSeconds();
+        }
+    }
+
+    // Reads a binary or CSV file (told apart by the magic number) into the visitor
+    public static ReadStats read(Path file, Visitor visitor) throws IOException {
+        ReadStats stats = new ReadStats();
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buf.limit(0); // empty and ready for reading, which is the state fill() expects
+            fill(channel, buf);
+            if (buf.remaining() >= 4 && buf.getInt(buf.position()) == MAGIC) {
+                buf.position(buf.position() + 4);
+                stats.shapes = readBinary(channel, buf, visitor);
+            } else {
+                stats.shapes = readCsv(channel, buf, visitor);
+            }
+            stats.bytes = channel.size();
+        }
+        stats.nanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    // Compacts what is left and reads more; false at end of file. Leaves buf flipped for reading.
+    private static boolean fill(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.compact();
+        int read = 0;
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf);
+            if (n < 0) {
+                break;
+            }
+            read += n;
+        }
+        buf.flip();
+        return read > 0;
+    }
+
+    private static long readBinary(FileChannel channel, ByteBuffer buf, Visitor visitor) throws IOException {
+        long shapes = 0;
+        boolean more = true;
+        while (true) {
+            // Only decode records that are known to be complete in the buffer
+            while (buf.remaining() >= MAX_BINARY_RECORD || (!more && buf.hasRemaining())) {
+                int kind = buf.get();
+                switch (kind) {
+                    case 0:
+                        visitor.circle(binaryFloat(buf, shapes));
+                        break;
+                    case 1:
+                        visitor.rectangle(binaryFloat(buf, shapes), binaryFloat(buf, shapes));
+                        break;
+                    case 2:
+                        visitor.square(binaryFloat(buf, shapes));
+                        break;
+                    case 3:
+                        visitor.triangle(binaryFloat(buf, shapes), binaryFloat(buf, shapes));
+                        break;
+                    default:
+                        throw new IOException("Unknown shape kind " + kind + " in record " + shapes);
+                }
+                shapes++;
+            }
+            if (!more) {
+                return shapes;
+            }
+            more = fill(channel, buf);
+        }
+    }
+
+    private static float binaryFloat(ByteBuffer buf, long record) throws IOException {
+        if (buf.remaining() < 4) {
+            throw new IOException("Truncated shape record " + record);
+        }
+        return buf.getFloat();
+    }
+
+    private static long readCsv(FileChannel channel, ByteBuffer buf, Visitor visitor) throws IOException {
+        float[] dims = new float[2];
+        boolean[] headerAllowed = {true};
+        long shapes = 0;
+        long line = 0;
+        boolean more = true;
+        while (true) {
+            int start = buf.position();
+            int limit = buf.limit();
+            int end;
+            while ((end = indexOf(buf, (byte) '\n', start, limit)) >= 0 || (!more && start < limit)) {
+                if (end < 0) {
+                    end = limit; // last line without a newline
+                }
+                line++;
+                if (parseCsvLine(buf, start, end, dims, visitor, line, headerAllowed)) {
+                    shapes++;
+                }
+                start = Math.min(end + 1, limit);
+            }
+            buf.position(start);
+            if (!more) {
+                return shapes;
+            }
+            if (buf.remaining() == buf.capacity()) {
+                throw new IOException("Line " + (line + 1) + " is longer than " + BUFFER_BYTES + " bytes");
+            }
+            more = fill(channel, buf);
+        }
+    }
+
+    private static int indexOf(ByteBuffer buf, byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // True if the line held a shape; blank lines and comments are skipped, and so is the first
+    // other line if it does not start with a shape kind (a header). headerAllowed[0] is cleared
+    // once that first line has been seen.
+    private static boolean parseCsvLine(ByteBuffer buf, int start, int end, float[] dims, Visitor visitor,
+            long line, boolean[] headerAllowed) throws IOException {
+        if (end > start && buf.get(end - 1) == '\r') {
+            end--;
+        }
+        if (start == end || buf.get(start) == '#') {
+            return false;
+        }
+        int comma = indexOf(buf, (byte) ',', start, end);
+        int kindEnd = comma < 0 ? end : comma;
+        int kind = kindOf(buf, start, kindEnd);
+        boolean header = headerAllowed[0];
+        headerAllowed[0] = false;
+        if (kind < 0) {
+            if (header) {
+                return false;
+            }
+            throw new IOException("Unknown shape kind at line " + line);
+        }
+        int count = 0;
+        int pos = kindEnd;
+        while (pos < end && count < dims.length) {
+            int fieldEnd = indexOf(buf, (byte) ',', pos + 1, end);
+            if (fieldEnd < 0) {
+                fieldEnd = end;
+            }
+            dims[count++] = parseFloat(buf, pos + 1, fieldEnd, line);
+            pos = fieldEnd;
+        }
+        int needed = kind == 0 || kind == 2 ? 1 : 2;
+        if (count != needed || pos != end) {
+            throw new IOException("Expected " + needed + " dimension(s) at line " + line);
+        }
+        switch (kind) {
+            case 0: visitor.circle(dims[0]); break;
+            case 1: visitor.rectangle(dims[0], dims[1]); break;
+            case 2: visitor.square(dims[0]); break;
+            default: visitor.triangle(dims[0], dims[1]); break;
+        }
+        return true;
+    }
+
+    // ShapeStore.Kind ordinal of a case-insensitive kind name, or -1
+    private static int kindOf(ByteBuffer buf, int start, int end) {
+        ShapeStore.Kind[] kinds = KINDS;
+        for (int k = 0; k < kinds.length; k++) {
+            String name = kinds[k].name();
+            if (end - start != name.length()) {
+                continue;
+            }
+            int i = 0;
+            while (i < name.length() && Character.toUpperCase((char) buf.get(start + i)) == name.charAt(i)) {
+                i++;
+            }
+            if (i == name.length()) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    // Plain decimals with up to 7 digits are converted exactly without making a String:
+    // both the digits and the power of ten fit a float, so one float division rounds
+    // just as Float.parseFloat would. Anything else goes to Float.parseFloat.
+    private static float parseFloat(ByteBuffer buf, int start, int end, long line) throws IOException {
+        int i = start;
+        while (i < end && buf.get(i) == ' ') {
+            i++;
+        }
+        int trimmedEnd = end;
+        while (trimmedEnd > i && buf.get(trimmedEnd - 1) == ' ') {
+            trimmedEnd--;
+        }
+        boolean negative = i < trimmedEnd && buf.get(i) == '-';
+        int p = negative ? i + 1 : i;
+        int mantissa = 0;
+        int digits = 0;
+        boolean anyDigit = false;
+        int fraction = -1;
+        for (; p < trimmedEnd; p++) {
+            byte c = buf.get(p);
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (digits > 0 || c != '0') {
+                    digits++;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction >= 0) {
+                    fraction++;
+                }
+                if (digits > 7) {
+                    break;
+                }
+            } else if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                break;
+            }
+        }
+        // "." or "-" alone has no digits; Float.parseFloat rejects those below
+        if (p == trimmedEnd && anyDigit && fraction < POWERS_OF_TEN.length) {
+            float value = fraction > 0 ? mantissa / POWERS_OF_TEN[fraction] : mantissa;
+            return negative ? -value : value;
+        }
+        byte[] bytes = new byte[trimmedEnd - i];
+        for (int k = 0; k < bytes.length; k++) {
+            bytes[k] = buf.get(i + k);
+        }
+        try {
+            return Float.parseFloat(new String(bytes, StandardCharsets.ISO_8859_1));
+        } catch (NumberFormatException e) {
+            throw new IOException("Bad number at line " + line + ": " + new String(bytes, StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    // Adds every shape to the store's columns
+    public static Visitor into(ShapeStore store) {
+        return new Visitor() {
+            public void circle(float radius) { store.addCircle(radius); }
+            public void rectangle(float length, float width) { store.addRectangle(length, width); }
+            public void square(float side) { store.addSquare(side); }
+            public void triangle(float base, float height) { store.addTriangle(base, height); }
+        };
+    }
+
+    // Builds a Shape object for every record
+    public static Visitor into(Consumer<Shape> sink) {
+        return new Visitor() {
+            public void circle(float radius) { sink.accept(new Circle(radius)); }
+            public void rectangle(float length, float width) { sink.accept(new Rectangle(length, width)); }
+            public void square(float side) { sink.accept(new Square(side)); }
+            public void triangle(float base, float height) { sink.accept(new Triangle(base, height)); }
+        };
+    }
+
+    // Aggregates a stream of any length holding at most CHUNK shapes at a time. Chunks
+    // are always the same size, so the result does not depend on the pool either.
+    public static final class Aggregator implements Visitor {
+        private final ForkJoinPool pool;
+        private final ShapeStore chunk = new ShapeStore();
+        private final Visitor columns = into(chunk);
+        private ShapeAggregates result;
+
+        public Aggregator(ForkJoinPool pool) {
+            this.pool = pool;
+        }
+
+        public void circle(float radius) {
+            columns.circle(radius);
+            flushIfFull();
+        }
+
+        public void rectangle(float length, float width) {
+            columns.rectangle(length, width);
+            flushIfFull();
+        }
+
+        public void square(float side) {
+            columns.square(side);
+            flushIfFull();
+        }
+
+        public void triangle(float base, float height) {
+            columns.triangle(base, height);
+            flushIfFull();
+        }
+
+        private void flushIfFull() {
+            if (chunk.size() == CHUNK) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            ShapeAggregates part = ShapeAggregates.of(chunk, pool);
+            result = result == null ? part : result.merge(part);
+            chunk.clear();
+        }
+
+        public ShapeAggregates finish() {
+            if (chunk.size() > 0 || result == null) {
+                flush();
+            }
+            return result;
+        }
+    }
+
+    public static void writeBinary(Path file, ShapeStore shapes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC);
+            for (int i = 0; i < shapes.size(); i++) {
+                if (buf.remaining() < MAX_BINARY_RECORD) {
+                    drain(channel, buf);
+                }
+                Shape shape = shapes.get(i);
+                ShapeStore.Kind kind = shapes.kind(i);
+                buf.put((byte) kind.ordinal());
+                switch (kind) {
+                    case CIRCLE: buf.putFloat(((Circle) shape).getRadius()); break;
+                    case SQUARE: buf.putFloat(((Square) shape).getSide()); break;
+                    case RECTANGLE: buf.putFloat(((Rectangle) shape).getLength()).putFloat(((Rectangle) shape).getWidth()); break;
+                    default: buf.putFloat(((Triangle) shape).getBase()).putFloat(((Triangle) shape).getHeight()); break;
+                }
+            }
+            drain(channel, buf);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+        buf.clear();
+    }
+
+    public static void writeCsv(Path file, ShapeStore shapes) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.ISO_8859_1)) {
+            out.write("kind,dim1,dim2\n");
+            for (int i = 0; i < shapes.size(); i++) {
+                Shape shape = shapes.get(i);
+                switch (shapes.kind(i)) {
+                    case CIRCLE: out.write("circle," + ((Circle) shape).getRadius()); break;
+                    case SQUARE: out.write("square," + ((Square) shape).getSide()); break;
+                    case RECTANGLE: out.write("rectangle," + ((Rectangle) shape).getLength() + "," + ((Rectangle) shape).getWidth()); break;
+                    default: out.write("triangle," + ((Triangle) shape).getBase() + "," + ((Triangle) shape).getHeight()); break;
+                }
+                out.write('\n');
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("generate")) {
+            Path file = Paths.get(args[1]);
+            int count = Integer.parseInt(args[2]);
+            Random random = new Random(42);
+            ShapeStore shapes = new ShapeStore();
+            for (int i = 0; i < count; i++) {
+                // Two decimal places, as hand-made data would have
+                float a = (1 + random.nextInt(1000)) / 100f;
+                float b = (1 + random.nextInt(1000)) / 100f;
+                switch (random.nextInt(4)) {
+                    case 0: shapes.addCircle(a); break;
+                    case 1: shapes.addRectangle(a, b); break;
+                    case 2: shapes.addSquare(a); break;
+                    default: shapes.addTriangle(a, b); break;
+                }
+            }
+            if (file.toString().endsWith(".csv")) {
+                writeCsv(file, shapes);
+            } else {
+                writeBinary(file, shapes);
+            }
+            System.out.println("Wrote " + count + " shapes to " + file + " (" + Files.size(file) + " bytes)");
+        } else if (args.length >= 2 && args[0].equals("sum")) {
+            Path file = Paths.get(args[1]);
+            ShapeAggregates aggregates;
+            ReadStats stats;
+            if (args.length > 2 && args[2].equals("--objects")) {
+                // One Shape object per record, aggregated a chunk at a time
+                Shape[] chunk = new Shape[CHUNK];
+                int[] size = {0};
+                ShapeAggregates[] result = {null};
+                Consumer<Shape[]> flush = shapes -> {
+                    ShapeAggregates part = ShapeAggregates.of(shapes);
+                    result[0] = result[0] == null ? part : result[0].merge(part);
+                };
+                stats = read(file, into(shape -> {
+                    chunk[size[0]++] = shape;
+                    if (size[0] == CHUNK) {
+                        flush.accept(chunk);
+                        size[0] = 0;
+                    }
+                }));
+                flush.accept(Arrays.copyOf(chunk, size[0]));
+                aggregates = result[0];
+            } else {
+                Aggregator aggregator = new Aggregator(ForkJoinPool.commonPool());
+                stats = read(file, aggregator);
+                aggregates = aggregator.finish();
+            }
+            aggregates.displayInfo();
+            System.out.printf("Read %d shapes, %.1f MB in %.3f s: %.1f MB/s%n", stats.getShapes(),
+                    stats.getBytes() / 1e6, stats.getSeconds(), stats.getMegabytesPerSecond());
+        } else {
+            System.out.println("Usage: java ShapeFiles generate <file> <count>");
+            System.out.println("       java ShapeFiles sum <file> [--objects]");
+        }
+    }
+}
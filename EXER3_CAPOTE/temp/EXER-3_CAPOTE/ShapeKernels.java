@@ -0,0 +1,77 @@
+// ShapeKernels.java - Bulk area formulas over primitive arrays
+//
+// This class is the plain scalar version. vector/VectorShapeKernels.java overrides
+// every method with SIMD code from the Java Vector API (jdk.incubator.vector), and
+// best() picks it up when it has been compiled and the module is available:
+//
+//   javac -d out *.java
+//   javac --add-modules jdk.incubator.vector -cp out -d out vector/VectorShapeKernels.java
+//   java --add-modules jdk.incubator.vector -cp out ShapeBenchmark
+//
+// Without those steps best() quietly returns the scalar kernels. The area methods
+// give exactly the floats each shape's getArea() gives; sum() may differ in
+// the last bits between the two versions because it adds in a different order.
+public class ShapeKernels {
+    private static final ShapeKernels SCALAR = new ShapeKernels();
+    private static final ShapeKernels BEST = load();
+
+    protected ShapeKernels() {
+    }
+
+    public static ShapeKernels scalar() {
+        return SCALAR;
+    }
+
+    // The vector kernels if they can be loaded, otherwise the scalar ones
+    public static ShapeKernels best() {
+        return BEST;
+    }
+
+    public String name() {
+        return "scalar";
+    }
+
+    public void circleAreas(float[] radius, float[] area, int n) {
+        for (int i = 0; i < n; i++) {
+            area[i] = (float) (Math.PI * radius[i] * radius[i]);
+        }
+    }
+
+    public void rectangleAreas(float[] length, float[] width, float[] area, int n) {
+        for (int i = 0; i < n; i++) {
+            area[i] = length[i] * width[i];
+        }
+    }
+
+    public void squareAreas(float[] side, float[] area, int n) {
+        for (int i = 0; i < n; i++) {
+            area[i] = side[i] * side[i];
+        }
+    }
+
+    public void triangleAreas(float[] base, float[] height, float[] area, int n) {
+        for (int i = 0; i < n; i++) {
+            area[i] = 0.5f * base[i] * height[i];
+        }
+    }
+
+    // Total of the first n values, accumulated in double
+    public double sum(float[] values, int n) {
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+
+    private static ShapeKernels load() {
+        if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            return SCALAR;
+        }
+        try {
+            return (ShapeKernels) Class.forName("VectorShapeKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+}
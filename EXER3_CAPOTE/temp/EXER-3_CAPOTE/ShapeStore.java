@@ -0,0 +1,245 @@
+// ShapeStore.java - Column storage for large numbers of shapes
+//
+// Each kind of shape keeps its dimensions and areas in its own float arrays
+// (struct-of-arrays) instead of one object per shape. Areas are computed by one
+// plain loop per kind over those arrays (see ShapeKernels, which uses SIMD code when
+// the Vector API is available), with no virtual calls and no pointer chasing. Shape
+// objects are only built when a caller asks for one with get().
+import java.util.Arrays;
+
+public class ShapeStore {
+    public enum Kind {
+        CIRCLE, RECTANGLE, SQUARE, TRIANGLE;
+
+        // Name of the matching shape class ("Circle"), the name ShapeAggregates groups under
+        public String typeName() {
+            switch (this) {
+                case CIRCLE: return Circle.class.getSimpleName();
+                case RECTANGLE: return Rectangle.class.getSimpleName();
+                case SQUARE: return Square.class.getSimpleName();
+                default: return Triangle.class.getSimpleName();
+            }
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Kind[] KINDS = Kind.values(); // values() copies the array on every call
+
+    private final ShapeKernels kernels;
+
+    // Circles
+    private float[] radius = new float[INITIAL_CAPACITY];
+    private float[] circleArea = new float[INITIAL_CAPACITY];
+    private int circles;
+
+    // Rectangles
+    private float[] length = new float[INITIAL_CAPACITY];
+    private float[] width = new float[INITIAL_CAPACITY];
+    private float[] rectangleArea = new float[INITIAL_CAPACITY];
+    private int rectangles;
+
+    // Squares
+    private float[] side = new float[INITIAL_CAPACITY];
+    private float[] squareArea = new float[INITIAL_CAPACITY];
+    private int squares;
+
+    // Triangles
+    private float[] base = new float[INITIAL_CAPACITY];
+    private float[] height = new float[INITIAL_CAPACITY];
+    private float[] triangleArea = new float[INITIAL_CAPACITY];
+    private int triangles;
+
+    // Insertion order: the kind of each shape and its position within that kind
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private int[] slots = new int[INITIAL_CAPACITY];
+    private int size;
+
+    // Areas are recomputed in bulk after shapes are added
+    private boolean areasValid = true;
+
+    public ShapeStore() {
+        this(ShapeKernels.best());
+    }
+
+    public ShapeStore(ShapeKernels kernels) {
+        this.kernels = kernels;
+    }
+
+    public void addCircle(float r) {
+        if (circles == radius.length) {
+            radius = grow(radius);
+            circleArea = grow(circleArea);
+        }
+        radius[circles] = r;
+        record(Kind.CIRCLE, circles++);
+    }
+
+    public void addRectangle(float l, float w) {
+        if (rectangles == length.length) {
+            length = grow(length);
+            width = grow(width);
+            rectangleArea = grow(rectangleArea);
+        }
+        length[rectangles] = l;
+        width[rectangles] = w;
+        record(Kind.RECTANGLE, rectangles++);
+    }
+
+    public void addSquare(float s) {
+        if (squares == side.length) {
+            side = grow(side);
+            squareArea = grow(squareArea);
+        }
+        side[squares] = s;
+        record(Kind.SQUARE, squares++);
+    }
+
+    public void addTriangle(float b, float h) {
+        if (triangles == base.length) {
+            base = grow(base);
+            height = grow(height);
+            triangleArea = grow(triangleArea);
+        }
+        base[triangles] = b;
+        height[triangles] = h;
+        record(Kind.TRIANGLE, triangles++);
+    }
+
+    // Copies the dimensions of an existing shape into the columns
+    public void add(Shape shape) {
+        if (shape instanceof Circle) {
+            addCircle(((Circle) shape).getRadius());
+        } else if (shape instanceof Square) {
+            addSquare(((Square) shape).getSide());
+        } else if (shape instanceof Rectangle) {
+            Rectangle r = (Rectangle) shape;
+            addRectangle(r.getLength(), r.getWidth());
+        } else if (shape instanceof Triangle) {
+            Triangle t = (Triangle) shape;
+            addTriangle(t.getBase(), t.getHeight());
+        } else {
+            throw new IllegalArgumentException("Unsupported shape: " + shape.getClass().getName());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int count(Kind kind) {
+        switch (kind) {
+            case CIRCLE: return circles;
+            case RECTANGLE: return rectangles;
+            case SQUARE: return squares;
+            case TRIANGLE: return triangles;
+            default: throw new IllegalArgumentException("Unknown kind: " + kind);
+        }
+    }
+
+    public Kind kind(int index) {
+        checkIndex(index);
+        return KINDS[kinds[index]];
+    }
+
+    // Fills every area column. Each formula matches the one in the shape's own
+    // computeArea(), so the results are the same floats.
+    public void computeAreas() {
+        kernels.circleAreas(radius, circleArea, circles);
+        kernels.rectangleAreas(length, width, rectangleArea, rectangles);
+        kernels.squareAreas(side, squareArea, squares);
+        kernels.triangleAreas(base, height, triangleArea, triangles);
+        areasValid = true;
+    }
+
+    public float area(int index) {
+        checkIndex(index);
+        ensureAreas();
+        int slot = slots[index];
+        switch (KINDS[kinds[index]]) {
+            case CIRCLE: return circleArea[slot];
+            case RECTANGLE: return rectangleArea[slot];
+            case SQUARE: return squareArea[slot];
+            default: return triangleArea[slot];
+        }
+    }
+
+    // Sum of all areas, accumulated in double so millions of small areas are not lost
+    // against a large running total the way a float accumulator loses them
+    public double totalArea() {
+        ensureAreas();
+        return kernels.sum(circleArea, circles) + kernels.sum(rectangleArea, rectangles)
+                + kernels.sum(squareArea, squares) + kernels.sum(triangleArea, triangles);
+    }
+
+    public double totalArea(Kind kind) {
+        ensureAreas();
+        switch (kind) {
+            case CIRCLE: return kernels.sum(circleArea, circles);
+            case RECTANGLE: return kernels.sum(rectangleArea, rectangles);
+            case SQUARE: return kernels.sum(squareArea, squares);
+            case TRIANGLE: return kernels.sum(triangleArea, triangles);
+            default: throw new IllegalArgumentException("Unknown kind: " + kind);
+        }
+    }
+
+    // The area column of one kind, valid for its first count(kind) entries; not a copy,
+    // so it is only for readers in this package that do not keep it
+    float[] areaColumn(Kind kind) {
+        ensureAreas();
+        switch (kind) {
+            case CIRCLE: return circleArea;
+            case RECTANGLE: return rectangleArea;
+            case SQUARE: return squareArea;
+            case TRIANGLE: return triangleArea;
+            default: throw new IllegalArgumentException("Unknown kind: " + kind);
+        }
+    }
+
+    // Builds a Shape object for one entry; nothing is kept, so each call makes a new one
+    public Shape get(int index) {
+        checkIndex(index);
+        int slot = slots[index];
+        switch (KINDS[kinds[index]]) {
+            case CIRCLE: return new Circle(radius[slot]);
+            case RECTANGLE: return new Rectangle(length[slot], width[slot]);
+            case SQUARE: return new Square(side[slot]);
+            default: return new Triangle(base[slot], height[slot]);
+        }
+    }
+
+    public void clear() {
+        circles = 0;
+        rectangles = 0;
+        squares = 0;
+        triangles = 0;
+        size = 0;
+        areasValid = true;
+    }
+
+    private void record(Kind kind, int slot) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        kinds[size] = (byte) kind.ordinal();
+        slots[size] = slot;
+        size++;
+        areasValid = false;
+    }
+
+    private void ensureAreas() {
+        if (!areasValid) {
+            computeAreas();
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Shape index " + index + " of " + size);
+        }
+    }
+
+    private static float[] grow(float[] array) {
+        return Arrays.copyOf(array, array.length * 2);
+    }
+}
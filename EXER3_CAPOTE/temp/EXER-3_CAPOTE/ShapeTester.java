@@ -1,4 +1,9 @@
 // ShapeTester.java - Test class for the shape hierarchy
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
 public class ShapeTester {
     public static void main(String[] args) {
         System.out.println("=== Individual Shape Information ===");
@@ -34,8 +39,67 @@ public class ShapeTester {
         System.out.println("=== Total Area Calculation ===");
         float totalArea = 0;
         for (Shape shape : shapes) {
-            totalArea += shape.area;
+            totalArea += shape.getArea();
         }
         System.out.println("Total area of all shapes: " + totalArea);
+        System.out.println();
+        
+        System.out.println("=== ShapeStore Bulk Area ===");
+        ShapeStore store = new ShapeStore();
+        for (Shape shape : shapes) {
+            store.add(shape);
+        }
+        store.computeAreas();
+        for (int i = 0; i < store.size(); i++) {
+            System.out.println(store.kind(i).typeName() + " area: " + store.area(i));
+        }
+        System.out.println("Total area from columns: " + (float) store.totalArea());
+        store.get(0).displayInfo();
+        System.out.println();
+        
+        System.out.println("=== Aggregate Statistics ===");
+        ShapeAggregates.of(shapes).displayInfo();
+        System.out.println();
+        
+        System.out.println("=== Lazy Area, Perimeter and Bounds ===");
+        for (Shape shape : shapes) {
+            shape.displayInfo();
+            System.out.println("Perimeter: " + shape.getPerimeter() + ", Bounds: " + shape.getBounds());
+        }
+        circle.setRadius(4.0f);
+        square.setSide(2.0f);
+        System.out.println("After resizing the circle and square:");
+        circle.displayInfo();
+        circle.displayArea();
+        square.displayInfo();
+        square.displayArea();
+        System.out.println();
+        
+        System.out.println("=== Streaming File Load ===");
+        try {
+            Path file = Files.createTempFile("shapes", ".csv");
+            ShapeFiles.writeCsv(file, store);
+            ShapeFiles.Aggregator aggregator = new ShapeFiles.Aggregator(ForkJoinPool.commonPool());
+            ShapeFiles.ReadStats stats = ShapeFiles.read(file, aggregator);
+            System.out.println("Read " + stats.getShapes() + " shapes (" + stats.getBytes() + " bytes) from CSV");
+            aggregator.finish().displayInfo();
+            Files.delete(file);
+
+            // Comments and blank lines may come before the header; a number needs a digit
+            Files.write(file, "# exported shapes\n\nkind,a,b\ncircle,1\nsquare,2\n".getBytes());
+            ShapeStore loaded = new ShapeStore();
+            ShapeFiles.read(file, ShapeFiles.into(loaded));
+            System.out.println("Commented file: " + loaded.size() + " shapes, total area " + (float) loaded.totalArea());
+            Files.write(file, "circle,.\n".getBytes());
+            try {
+                ShapeFiles.read(file, ShapeFiles.into(new ShapeStore()));
+                System.out.println("A radius of \".\" was accepted");
+            } catch (IOException e) {
+                System.out.println("Rejected: " + e.getMessage());
+            }
+            Files.delete(file);
+        } catch (IOException e) {
+            System.out.println("Could not write or read the shape file: " + e.getMessage());
+        }
     }
 }
@@ -13,4 +13,21 @@ public class Square extends Rectangle {
     public float getSide() {
         return length;
     }
+    
+    public void setSide(float side) {
+        length = side;
+        width = side;
+        invalidate();
+    }
+    
+    // Either dimension resizes the whole square
+    @Override
+    public void setLength(float length) {
+        setSide(length);
+    }
+    
+    @Override
+    public void setWidth(float width) {
+        setSide(width);
+    }
 }
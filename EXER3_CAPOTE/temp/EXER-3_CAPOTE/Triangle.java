@@ -1,4 +1,5 @@
 // Triangle.java - Subclass of Shape
+// The perimeter and bounding box take the apex to be centred over the base (isosceles)
 public class Triangle extends Shape {
     private float base;
     private float height;
@@ -6,12 +7,22 @@ public class Triangle extends Shape {
     public Triangle(float base, float height) {
         this.base = base;
         this.height = height;
-        calculateArea();
     }
     
     @Override
-    public void calculateArea() {
-        area = 0.5f * base * height;
+    protected float computeArea() {
+        return 0.5f * base * height;
+    }
+    
+    @Override
+    protected float computePerimeter() {
+        double side = Math.hypot(base / 2.0, height);
+        return (float) (base + 2 * side);
+    }
+    
+    @Override
+    protected Bounds computeBounds() {
+        return new Bounds(base, height);
     }
     
     @Override
@@ -26,4 +37,14 @@ public class Triangle extends Shape {
     public float getHeight() {
         return height;
     }
+    
+    public void setBase(float base) {
+        this.base = base;
+        invalidate();
+    }
+    
+    public void setHeight(float height) {
+        this.height = height;
+        invalidate();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+// VectorShapeKernels.java - SIMD versions of the ShapeKernels formulas (Java Vector API)
+//
+// Needs --add-modules jdk.incubator.vector to compile and run; see ShapeKernels.java.
+// Vectors use the widest shape the CPU prefers (256 bits with AVX2, 512 with AVX-512).
+//
+// Circle areas are computed in double lanes, like Circle.computeArea() computes
+// (float) (Math.PI * r * r) in double: each group of floats is widened into one
+// double vector, multiplied and narrowed back, so the results match it exactly.
+// Rectangle, square and triangle areas are float math in both versions.
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorShapeKernels extends ShapeKernels {
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    // As many floats as DOUBLES has lanes, so one widening conversion fills a double vector
+    private static final VectorSpecies<Float> HALF_FLOATS =
+            VectorSpecies.of(float.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+    @Override
+    public String name() {
+        return "vector-" + FLOATS.vectorBitSize();
+    }
+
+    @Override
+    public void circleAreas(float[] radius, float[] area, int n) {
+        int i = 0;
+        for (int bound = HALF_FLOATS.loopBound(n); i < bound; i += HALF_FLOATS.length()) {
+            DoubleVector r = (DoubleVector) FloatVector.fromArray(HALF_FLOATS, radius, i)
+                    .convertShape(VectorOperators.F2D, DOUBLES, 0);
+            ((FloatVector) r.mul(Math.PI).mul(r).convertShape(VectorOperators.D2F, HALF_FLOATS, 0))
+                    .intoArray(area, i);
+        }
+        for (; i < n; i++) {
+            area[i] = (float) (Math.PI * radius[i] * radius[i]);
+        }
+    }
+
+    @Override
+    public void rectangleAreas(float[] length, float[] width, float[] area, int n) {
+        int i = 0;
+        for (int bound = FLOATS.loopBound(n); i < bound; i += FLOATS.length()) {
+            FloatVector.fromArray(FLOATS, length, i).mul(FloatVector.fromArray(FLOATS, width, i)).intoArray(area, i);
+        }
+        for (; i < n; i++) {
+            area[i] = length[i] * width[i];
+        }
+    }
+
+    @Override
+    public void squareAreas(float[] side, float[] area, int n) {
+        int i = 0;
+        for (int bound = FLOATS.loopBound(n); i < bound; i += FLOATS.length()) {
+            FloatVector s = FloatVector.fromArray(FLOATS, side, i);
+            s.mul(s).intoArray(area, i);
+        }
+        for (; i < n; i++) {
+            area[i] = side[i] * side[i];
+        }
+    }
+
+    @Override
+    public void triangleAreas(float[] base, float[] height, float[] area, int n) {
+        int i = 0;
+        for (int bound = FLOATS.loopBound(n); i < bound; i += FLOATS.length()) {
+            FloatVector.fromArray(FLOATS, base, i).mul(0.5f).mul(FloatVector.fromArray(FLOATS, height, i))
+                    .intoArray(area, i);
+        }
+        for (; i < n; i++) {
+            area[i] = 0.5f * base[i] * height[i];
+        }
+    }
+
+    // One double accumulator per lane, added together at the end
+    @Override
+    public double sum(float[] values, int n) {
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = HALF_FLOATS.loopBound(n); i < bound; i += HALF_FLOATS.length()) {
+            acc = acc.add(FloatVector.fromArray(HALF_FLOATS, values, i).convertShape(VectorOperators.F2D, DOUBLES, 0));
+        }
+        double total = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < n; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+}
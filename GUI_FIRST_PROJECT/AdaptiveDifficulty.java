@@ -0,0 +1,101 @@
+// AdaptiveDifficulty.java - Online difficulty model for the "Adaptive" setting
+//
+// For each operation it keeps an exponentially weighted moving average of accuracy
+// and response time plus a level between 0 and 1. Every answer nudges the level up
+// when the player is accurate and quick, and down when they miss or are slow, so
+// memory and update cost stay O(1) no matter how long the session runs. The level
+// sets the operand ranges; weaker operations also come up more often in mixed mode.
+//
+// record() is called from one thread (the EDT); the question producer only reads the
+// published ranges and weights, so generation never waits on the UI or vice versa.
+import java.util.SplittableRandom;
+
+public class AdaptiveDifficulty {
+    private static final double ALPHA = 0.15;             // EWMA weight of the newest answer
+    private static final double TARGET_ACCURACY = 0.8;
+    private static final double TARGET_SECONDS = 4.0;
+    private static final double STEP = 0.05;              // largest level change per answer
+    private static final double INITIAL_LEVEL = 0.25;
+
+    // Operand ranges at level 0 and level 1; level 0 matches EASY and level 1 goes past HARD
+    private static final int MIN_FIRST = 10;
+    private static final int MAX_FIRST = 200;
+    private static final int MIN_SECOND = 10;
+    private static final int MAX_SECOND = 100;
+
+    // Per-operation state; written only by the recording thread
+    private static final class Stats {
+        volatile double accuracy = TARGET_ACCURACY;
+        volatile double seconds = TARGET_SECONDS;
+        volatile double level = INITIAL_LEVEL;
+        volatile int maxFirst;
+        volatile int maxSecond;
+        volatile double weight;
+    }
+
+    private final Stats[] stats = new Stats[QuestionEngine.Operation.values().length];
+
+    public AdaptiveDifficulty() {
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = new Stats();
+            publish(stats[i]);
+        }
+    }
+
+    public void record(QuestionEngine.Operation operation, boolean correct, long responseNanos) {
+        Stats s = stats[operation.ordinal()];
+        double accuracy = s.accuracy + ALPHA * ((correct ? 1 : 0) - s.accuracy);
+        double seconds = s.seconds + ALPHA * (responseNanos / 1e9 - s.seconds);
+        double skill = clamp((accuracy - TARGET_ACCURACY) / (1 - TARGET_ACCURACY), -1, 1);
+        double speed = clamp((TARGET_SECONDS - seconds) / TARGET_SECONDS, -1, 1);
+        // A wrong answer always takes a full step down, however fast it was
+        double push = correct ? (2 * skill + speed) / 3 : -1;
+        s.accuracy = accuracy;
+        s.seconds = seconds;
+        s.level = clamp(s.level + STEP * push, 0, 1);
+        publish(s);
+    }
+
+    public double level(QuestionEngine.Operation operation) {
+        return stats[operation.ordinal()].level;
+    }
+
+    public double accuracy(QuestionEngine.Operation operation) {
+        return stats[operation.ordinal()].accuracy;
+    }
+
+    public int maxFirst(QuestionEngine.Operation operation) {
+        return stats[operation.ordinal()].maxFirst;
+    }
+
+    public int maxSecond(QuestionEngine.Operation operation) {
+        return stats[operation.ordinal()].maxSecond;
+    }
+
+    // Operation for a mixed question; ones the player gets wrong more often are picked more often
+    public QuestionEngine.Operation pickOperation(SplittableRandom random) {
+        double total = 0;
+        for (Stats s : stats) {
+            total += s.weight;
+        }
+        double r = random.nextDouble() * total;
+        for (int i = 0; i < stats.length - 1; i++) {
+            r -= stats[i].weight;
+            if (r < 0) {
+                return QuestionEngine.Operation.fromIndex(i);
+            }
+        }
+        return QuestionEngine.Operation.fromIndex(stats.length - 1);
+    }
+
+    private static void publish(Stats s) {
+        double level = s.level;
+        s.maxFirst = (int) Math.round(MIN_FIRST + level * (MAX_FIRST - MIN_FIRST));
+        s.maxSecond = (int) Math.round(MIN_SECOND + level * (MAX_SECOND - MIN_SECOND));
+        s.weight = 0.25 + (1 - s.accuracy);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -1,11 +1,17 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
 import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.io.*;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
 
 public class ArithmeticGame extends JFrame {
     // Game panels
@@ -32,89 +38,152 @@ public class ArithmeticGame extends JFrame {
 	private JComboBox<String> schemeComboBox;
 
 	// Theme support
-	private enum ThemeMode { LIGHT, DARK }
+	enum ThemeMode { LIGHT, DARK }
 	private ThemeMode currentTheme = ThemeMode.LIGHT;
 
-	private enum ColorScheme { BLUE, PURPLE, GREEN, SUNSET, NEON }
+	enum ColorScheme { BLUE, PURPLE, GREEN, SUNSET, NEON }
 	private ColorScheme currentScheme = ColorScheme.BLUE;
 
+	// Colours for the current theme and scheme; replaced as a whole when either changes,
+	// so paint code always sees one consistent palette and never allocates a Color
+	private volatile Palette palette = Palette.of(currentTheme, currentScheme);
+
 	// Theme helpers
-	private boolean isDark() { return currentTheme == ThemeMode.DARK; }
-
-	private Color adjustForTheme(Color c) { return isDark() ? c.darker() : c; }
-
-	private Color titleGradientStart() {
-		switch (currentScheme) {
-			case PURPLE: return adjustForTheme(new Color(186, 104, 200));
-			case GREEN: return adjustForTheme(new Color(129, 199, 132));
-			case SUNSET: return adjustForTheme(new Color(255, 138, 101));
-			case NEON: return adjustForTheme(new Color(0, 230, 118));
-			case BLUE:
-			default: return adjustForTheme(new Color(100, 181, 246));
-		}
+	private boolean isDark() { return palette.dark; }
+
+	private Color titleGradientStart() { return palette.titleGradientStart; }
+	private Color titleGradientEnd() { return palette.titleGradientEnd; }
+	private Color gameGradientStart() { return palette.gameGradientStart; }
+	private Color gameGradientEnd() { return palette.gameGradientEnd; }
+	private Color baseBg() { return palette.baseBg; }
+	private Color answerPanelBg() { return palette.infoPanelBg; }
+	private Color infoPanelBg() { return palette.infoPanelBg; }
+	private Color boxBorder() { return palette.boxBorder; }
+	private Color primaryText() { return palette.primaryText; }
+	private Color secondaryText() { return palette.secondaryText; }
+	private Color normalText() { return palette.normalText; }
+	private Color scoreTextColor() { return palette.scoreText; }
+
+	private void updatePalette() {
+		palette = Palette.of(currentTheme, currentScheme);
 	}
 
-	private Color titleGradientEnd() {
-		switch (currentScheme) {
-			case PURPLE: return adjustForTheme(new Color(123, 31, 162));
-			case GREEN: return adjustForTheme(new Color(56, 142, 60));
-			case SUNSET: return adjustForTheme(new Color(255, 87, 34));
-			case NEON: return adjustForTheme(new Color(0, 191, 165));
-			case BLUE:
-			default: return adjustForTheme(new Color(30, 136, 229));
+	// Immutable set of colours for one theme and colour scheme. Every combination is
+	// built once when the class loads; of() is a table lookup.
+	static final class Palette {
+		private static final Palette[][] TABLE = new Palette[ThemeMode.values().length][ColorScheme.values().length];
+		static {
+			for (ThemeMode theme : ThemeMode.values()) {
+				for (ColorScheme scheme : ColorScheme.values()) {
+					TABLE[theme.ordinal()][scheme.ordinal()] = new Palette(theme, scheme);
+				}
+			}
 		}
-	}
 
-	private Color gameGradientStart() {
-		switch (currentScheme) {
-			case PURPLE: return adjustForTheme(new Color(225, 190, 231));
-			case GREEN: return adjustForTheme(new Color(200, 230, 201));
-			case SUNSET: return adjustForTheme(new Color(255, 204, 188));
-			case NEON: return adjustForTheme(new Color(178, 255, 219));
-			case BLUE:
-			default: return adjustForTheme(new Color(179, 229, 252));
+		final boolean dark;
+		final Color titleGradientStart;
+		final Color titleGradientEnd;
+		final Color gameGradientStart;
+		final Color gameGradientEnd;
+		final Color baseBg;
+		final Color infoPanelBg;
+		final Color boxBorder;
+		final Color primaryText;
+		final Color secondaryText;
+		final Color normalText;
+		final Color scoreText;
+
+		static Palette of(ThemeMode theme, ColorScheme scheme) {
+			return TABLE[theme.ordinal()][scheme.ordinal()];
 		}
-	}
 
-	private Color gameGradientEnd() {
-		switch (currentScheme) {
-			case PURPLE: return adjustForTheme(new Color(171, 71, 188));
-			case GREEN: return adjustForTheme(new Color(102, 187, 106));
-			case SUNSET: return adjustForTheme(new Color(255, 112, 67));
-			case NEON: return adjustForTheme(new Color(29, 233, 182));
-			case BLUE:
-			default: return adjustForTheme(new Color(100, 181, 246));
+		// Builds a palette from scratch; only used to fill the table (and by the benchmark for comparison)
+		Palette(ThemeMode theme, ColorScheme scheme) {
+			dark = theme == ThemeMode.DARK;
+			titleGradientStart = adjustForTheme(titleGradientStart(scheme));
+			titleGradientEnd = adjustForTheme(titleGradientEnd(scheme));
+			gameGradientStart = adjustForTheme(gameGradientStart(scheme));
+			gameGradientEnd = adjustForTheme(gameGradientEnd(scheme));
+			baseBg = dark ? new Color(33, 33, 33) : baseBg(scheme);
+			infoPanelBg = dark ? new Color(40, 40, 40) : infoPanelBg(scheme);
+			boxBorder = dark ? new Color(120, 144, 156) : new Color(100, 181, 246);
+			primaryText = dark ? new Color(236, 239, 241) : new Color(25, 118, 210);
+			secondaryText = dark ? new Color(207, 216, 220) : new Color(13, 71, 161);
+			normalText = dark ? new Color(245, 245, 245) : Color.BLACK;
+			scoreText = dark ? new Color(255, 213, 79) : normalText;
 		}
-	}
-	private Color baseBg() {
-		if (isDark()) return new Color(33, 33, 33);
-		switch (currentScheme) {
-			case PURPLE: return new Color(243, 232, 250);
-			case GREEN: return new Color(232, 248, 235);
-			case SUNSET: return new Color(255, 239, 231);
-			case NEON: return new Color(232, 255, 246);
-			case BLUE:
-			default: return new Color(232, 245, 255);
+
+		private Color adjustForTheme(Color c) { return dark ? c.darker() : c; }
+
+		private static Color titleGradientStart(ColorScheme scheme) {
+			switch (scheme) {
+				case PURPLE: return new Color(186, 104, 200);
+				case GREEN: return new Color(129, 199, 132);
+				case SUNSET: return new Color(255, 138, 101);
+				case NEON: return new Color(0, 230, 118);
+				case BLUE:
+				default: return new Color(100, 181, 246);
+			}
 		}
-	}
 
-private Color answerPanelBg() { return infoPanelBg(); }
-
-	private Color infoPanelBg() {
-		if (isDark()) return new Color(40, 40, 40);
-		switch (currentScheme) {
-			case PURPLE: return new Color(230, 210, 242);
-			case GREEN: return new Color(212, 236, 218);
-			case SUNSET: return new Color(255, 222, 205);
-			case NEON: return new Color(196, 252, 230);
-			case BLUE:
-			default: return new Color(210, 235, 252);
+		private static Color titleGradientEnd(ColorScheme scheme) {
+			switch (scheme) {
+				case PURPLE: return new Color(123, 31, 162);
+				case GREEN: return new Color(56, 142, 60);
+				case SUNSET: return new Color(255, 87, 34);
+				case NEON: return new Color(0, 191, 165);
+				case BLUE:
+				default: return new Color(30, 136, 229);
+			}
+		}
+
+		private static Color gameGradientStart(ColorScheme scheme) {
+			switch (scheme) {
+				case PURPLE: return new Color(225, 190, 231);
+				case GREEN: return new Color(200, 230, 201);
+				case SUNSET: return new Color(255, 204, 188);
+				case NEON: return new Color(178, 255, 219);
+				case BLUE:
+				default: return new Color(179, 229, 252);
+			}
+		}
+
+		private static Color gameGradientEnd(ColorScheme scheme) {
+			switch (scheme) {
+				case PURPLE: return new Color(171, 71, 188);
+				case GREEN: return new Color(102, 187, 106);
+				case SUNSET: return new Color(255, 112, 67);
+				case NEON: return new Color(29, 233, 182);
+				case BLUE:
+				default: return new Color(100, 181, 246);
+			}
+		}
+
+		private static Color baseBg(ColorScheme scheme) {
+			switch (scheme) {
+				case PURPLE: return new Color(243, 232, 250);
+				case GREEN: return new Color(232, 248, 235);
+				case SUNSET: return new Color(255, 239, 231);
+				case NEON: return new Color(232, 255, 246);
+				case BLUE:
+				default: return new Color(232, 245, 255);
+			}
+		}
+
+		private static Color infoPanelBg(ColorScheme scheme) {
+			switch (scheme) {
+				case PURPLE: return new Color(230, 210, 242);
+				case GREEN: return new Color(212, 236, 218);
+				case SUNSET: return new Color(255, 222, 205);
+				case NEON: return new Color(196, 252, 230);
+				case BLUE:
+				default: return new Color(210, 235, 252);
+			}
 		}
 	}
-	private Color primaryText() { return isDark() ? new Color(236, 239, 241) : new Color(25, 118, 210); }
-	private Color secondaryText() { return isDark() ? new Color(207, 216, 220) : new Color(13, 71, 161); }
-	private Color normalText() { return isDark() ? new Color(245, 245, 245) : Color.BLACK; }
-	private Color scoreTextColor() { return isDark() ? new Color(255, 213, 79) : normalText(); }
+
+	private final GradientSurface titleBackground = new GradientSurface(0);
+	private final GradientSurface gameBackground = new GradientSurface(0);
 
 	private void applyTextColors() {
 		if (welcomeLabel != null) welcomeLabel.setForeground(primaryText());
@@ -126,6 +195,7 @@ private Color answerPanelBg() { return infoPanelBg(); }
 
 	// Large question panel that draws the equation inside a big rounded box
 	private class QuestionPanel extends JPanel {
+		private final QuestionRenderer renderer = new QuestionRenderer();
 		private String questionText = "";
 
 		public QuestionPanel() {
@@ -153,112 +223,281 @@ private Color answerPanelBg() { return infoPanelBg(); }
 
 		@Override
 		protected void paintComponent(Graphics g) {
+			long start = System.nanoTime();
 			super.paintComponent(g);
 			Graphics2D g2d = (Graphics2D) g.create();
+			renderer.paint(g2d, getWidth(), getHeight(), questionText, infoPanelBg(),
+					boxBorder(), normalText(), answerField);
+			g2d.dispose();
+			telemetry.recordTiming(Telemetry.Timing.PAINT, System.nanoTime() - start);
+		}
+	}
+
+	// Draws a question into any Graphics2D; kept apart from the panel so it can be benchmarked offscreen.
+	// Token kinds, fonts, text layouts and box geometry are worked out once per question text,
+	// size and font render context, so a repaint of the same question only draws cached shapes.
+	static class QuestionRenderer {
+		private static final int H_PAD = 24;
+		private static final int BOX_H_PAD = 18; // inner horizontal padding for number boxes
+		private static final int BOX_V_PAD = 10; // inner vertical padding for number boxes
+		private static final int ARC = 20;
+		private static final int ANSWER_INNER_PAD = 6;
+		private static final BasicStroke BOX_STROKE = new BasicStroke(3f);
+		private static final javax.swing.border.Border ANSWER_BORDER = BorderFactory.createEmptyBorder(4, 10, 4, 10);
+
+		private static final int NUMBER = 0;
+		private static final int ANSWER = 1;
+		private static final int TEXT = 2;
+
+		// Cache key
+		private String text;
+		private int width = -1;
+		private int height = -1;
+		private FontRenderContext frc;
+
+		// Cached layout, one slot per token
+		private int count;
+		private int[] kinds = new int[0];
+		private TextLayout[] layouts = new TextLayout[0];
+		private RoundRectangle2D.Float[] boxes = new RoundRectangle2D.Float[0];
+		private float[] textX = new float[0];
+		private float[] textY = new float[0];
+		private Font answerFont;
+		private Rectangle answerBounds;
+		private JTextField styledField; // answer field already given the current font and bounds
+
+		void paint(Graphics2D g2d, int w, int h, String questionText, Color boxFill, Color boxBorder,
+				Color textColor, JTextField answerField) {
 			g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			String question = questionText == null ? "" : questionText;
+			FontRenderContext context = g2d.getFontRenderContext();
+			if (w != width || h != height || !question.equals(text) || !context.equals(frc)) {
+				layout(g2d, question, w, h, context);
+			}
 
-			int w = getWidth();
-			int h = getHeight();
-			int hPad = 24;
-			int boxHPad = 18; // inner horizontal padding for number boxes
-			int boxVPad = 10; // inner vertical padding for number boxes
-			int arc = 20;
+			g2d.setStroke(BOX_STROKE);
+			for (int i = 0; i < count; i++) {
+				if (kinds[i] == NUMBER) {
+					// Box background and border (use same as info panel styling), text centered in box
+					g2d.setColor(boxFill);
+					g2d.fill(boxes[i]);
+					g2d.setColor(boxBorder);
+					g2d.draw(boxes[i]);
+					g2d.setColor(textColor);
+					layouts[i].draw(g2d, textX[i], textY[i]);
+				} else if (kinds[i] == ANSWER) {
+					// Answer box; the real input field sits inside it
+					g2d.setColor(Color.WHITE);
+					g2d.fill(boxes[i]);
+					g2d.setColor(boxBorder);
+					g2d.draw(boxes[i]);
+				} else if (layouts[i] != null) {
+					// Operator/equals as plain large text
+					g2d.setColor(textColor);
+					layouts[i].draw(g2d, textX[i], textY[i]);
+				}
+			}
+
+			// Only touch the answer field when the layout actually changed
+			if (answerField != null && answerBounds != null && styledField != answerField) {
+				answerField.setBackground(Color.WHITE);
+				answerField.setForeground(Color.BLACK);
+				answerField.setBorder(ANSWER_BORDER);
+				answerField.setFont(answerFont);
+				answerField.setHorizontalAlignment(JTextField.CENTER);
+				answerField.setBounds(answerBounds);
+				styledField = answerField;
+			}
+		}
+
+		private void layout(Graphics2D g2d, String question, int w, int h, FontRenderContext context) {
+			text = question;
+			width = w;
+			height = h;
+			frc = context;
+			styledField = null;
+			answerBounds = null;
 
 			// Prepare fonts
 			Font numberFont = new Font("Arial", Font.BOLD, Math.max(56, h / 3));
 			Font opFont = new Font("Arial", Font.BOLD, Math.max(48, h / 3 - 8));
+			answerFont = numberFont;
+			int numberAscent = g2d.getFontMetrics(numberFont).getAscent();
+			int opAscent = g2d.getFontMetrics(opFont).getAscent();
 
 			// Tokenize by spaces
-			String[] tokens = questionText == null ? new String[0] : questionText.split(" ");
+			String[] tokens = question.split(" ");
+			count = tokens.length;
+			kinds = new int[count];
+			layouts = new TextLayout[count];
+			boxes = new RoundRectangle2D.Float[count];
+			textX = new float[count];
+			textY = new float[count];
+			int[] advances = new int[count];
 
-			// First pass: find widest number box
+			// First pass: classify tokens and find widest number box
 			int maxNumberBoxW = 0;
-			for (int i = 0; i < tokens.length; i++) {
+			for (int i = 0; i < count; i++) {
 				String t = tokens[i];
-				if (t.matches("\\d+")) {
-					FontMetrics fmNum = g2d.getFontMetrics(numberFont);
-					int wText = fmNum.stringWidth(t);
-					maxNumberBoxW = Math.max(maxNumberBoxW, wText + boxHPad * 2);
+				kinds[i] = isNumber(t) ? NUMBER : "?".equals(t) ? ANSWER : TEXT;
+				if (kinds[i] != ANSWER && !t.isEmpty()) {
+					layouts[i] = new TextLayout(t, kinds[i] == NUMBER ? numberFont : opFont, context);
+					advances[i] = Math.round(layouts[i].getAdvance());
+				}
+				if (kinds[i] == NUMBER) {
+					maxNumberBoxW = Math.max(maxNumberBoxW, advances[i] + BOX_H_PAD * 2);
 				}
 			}
 
-			FontMetrics fmNumGlobal = g2d.getFontMetrics(numberFont);
-			int defaultAnswerW = fmNumGlobal.stringWidth("00") + boxHPad * 2;
+			int defaultAnswerW = Math.round(new TextLayout("00", numberFont, context).getAdvance()) + BOX_H_PAD * 2;
 			int answerW = Math.max(maxNumberBoxW, defaultAnswerW);
 
-            // Second pass (measurement): total width using unified width for numbers and answer
+			// Second pass (measurement): total width using unified width for numbers and answer
 			int totalWidth = 0;
-			for (int i = 0; i < tokens.length; i++) {
-				String t = tokens[i];
-                if ("?".equals(t) || t.matches("\\d+")) {
-                    totalWidth += answerW;
-				} else {
-					FontMetrics fmOp = g2d.getFontMetrics(opFont);
-					totalWidth += fmOp.stringWidth(t);
-				}
-				if (i < tokens.length - 1) totalWidth += hPad; // spacing between tokens
+			for (int i = 0; i < count; i++) {
+				totalWidth += kinds[i] == TEXT ? advances[i] : answerW;
+				if (i < count - 1) totalWidth += H_PAD; // spacing between tokens
 			}
 
-			int startX = Math.max(hPad, (w - totalWidth) / 2);
+			int x = Math.max(H_PAD, (w - totalWidth) / 2);
 			int centerY = h / 2;
+			int boxH = numberAscent + BOX_V_PAD * 2;
+			int boxY = centerY - boxH / 2;
 
-			// Second pass: draw and position answer field if needed
-			int x = startX;
-			for (int i = 0; i < tokens.length; i++) {
-				String t = tokens[i];
-				boolean isNumber = t.matches("\\d+");
-				Font font = isNumber ? numberFont : opFont;
-				g2d.setFont(font);
-				FontMetrics fm = g2d.getFontMetrics();
-				int textW = fm.stringWidth(t);
-				int textH = fm.getAscent();
-
-                if (isNumber) {
-                    int boxW = answerW;
-					int boxH = textH + boxVPad * 2;
-					int y = centerY - boxH / 2;
-					// Box background and border (use same as info panel styling)
-					g2d.setColor(infoPanelBg());
-					g2d.fillRoundRect(x, y, boxW, boxH, arc, arc);
-					g2d.setStroke(new BasicStroke(3f));
-					g2d.setColor(isDark() ? new Color(120, 144, 156) : new Color(100, 181, 246));
-					g2d.drawRoundRect(x, y, boxW, boxH, arc, arc);
-					// Text centered in box
-					g2d.setColor(normalText());
-					int tx = x + (boxW - textW) / 2;
-					int ty = y + (boxH + textH) / 2 - 4;
-					g2d.drawString(t, tx, ty);
-					x += boxW + hPad;
-				} else if ("?".equals(t)) {
-					// Draw answer box and place the real input field inside
-					FontMetrics numFm = g2d.getFontMetrics(numberFont);
-					int numTextH = numFm.getAscent();
-					int boxH = numTextH + boxVPad * 2;
-					int placeholderW = answerW;
-					int y = centerY - boxH / 2;
-					g2d.setColor(Color.WHITE);
-					g2d.fillRoundRect(x, y, placeholderW, boxH, arc, arc);
-					g2d.setStroke(new BasicStroke(3f));
-					g2d.setColor(isDark() ? new Color(120, 144, 156) : new Color(100, 181, 246));
-					g2d.drawRoundRect(x, y, placeholderW, boxH, arc, arc);
-
-					answerField.setBackground(Color.WHITE);
-					answerField.setForeground(Color.BLACK);
-                    answerField.setBorder(BorderFactory.createEmptyBorder(4, 10, 4, 10));
-                    answerField.setFont(new Font("Arial", Font.BOLD, numberFont.getSize()));
-					answerField.setHorizontalAlignment(JTextField.CENTER);
-					int innerPad = 6;
-					answerField.setBounds(x + innerPad, y + innerPad, placeholderW - innerPad * 2, boxH - innerPad * 2);
-					x += placeholderW + hPad;
+			// Third pass: position boxes, text and the answer field
+			for (int i = 0; i < count; i++) {
+				if (kinds[i] == NUMBER) {
+					boxes[i] = new RoundRectangle2D.Float(x, boxY, answerW, boxH, ARC, ARC);
+					textX[i] = x + (answerW - advances[i]) / 2;
+					textY[i] = boxY + (boxH + numberAscent) / 2 - 4;
+					x += answerW + H_PAD;
+				} else if (kinds[i] == ANSWER) {
+					boxes[i] = new RoundRectangle2D.Float(x, boxY, answerW, boxH, ARC, ARC);
+					answerBounds = new Rectangle(x + ANSWER_INNER_PAD, boxY + ANSWER_INNER_PAD,
+							answerW - ANSWER_INNER_PAD * 2, boxH - ANSWER_INNER_PAD * 2);
+					x += answerW + H_PAD;
 				} else {
-					// Draw operator/equals/question as plain large text
-					g2d.setColor(normalText());
-					int ty = centerY + textH / 2 - 4;
-					g2d.drawString(t, x, ty);
-					x += textW + hPad;
+					textX[i] = x;
+					textY[i] = centerY + opAscent / 2 - 4;
+					x += advances[i] + H_PAD;
+				}
+			}
+		}
+
+		private static boolean isNumber(String t) {
+			if (t.isEmpty()) return false;
+			for (int i = 0; i < t.length(); i++) {
+				char c = t.charAt(i);
+				if (c < '0' || c > '9') return false;
+			}
+			return true;
+		}
+	}
+    
+	// A vertical gradient (optionally with rounded corners and a centered label) rasterized once
+	// per size and colours and then blitted. Uses a VolatileImage when the component's screen can
+	// provide one, and a BufferedImage otherwise (e.g. headless or offscreen painting).
+	static class GradientSurface {
+		private final int arc;
+		private Image image;
+		private int width;
+		private int height;
+		private Color top;
+		private Color bottom;
+		private String label;
+		private Font font;
+		private boolean dirty = true;
+
+		GradientSurface(int arc) {
+			this.arc = arc;
+		}
+
+		// Forces the next paint to rasterize again, e.g. after a theme change
+		void invalidate() {
+			dirty = true;
+		}
+
+		void paint(Component c, Graphics g, int w, int h, Color top, Color bottom) {
+			paint(c, g, w, h, top, bottom, null, null);
+		}
+
+		void paint(Component c, Graphics g, int w, int h, Color top, Color bottom, String label, Font font) {
+			if (w <= 0 || h <= 0) return;
+			if (!top.equals(this.top) || !bottom.equals(this.bottom)
+					|| !Objects.equals(label, this.label) || !Objects.equals(font, this.font)) {
+				this.top = top;
+				this.bottom = bottom;
+				this.label = label;
+				this.font = font;
+				dirty = true;
+			}
+			GraphicsConfiguration gc = c.getGraphicsConfiguration();
+			if (gc == null || GraphicsEnvironment.isHeadless()) {
+				paintBuffered(g, w, h);
+				return;
+			}
+			int transparency = arc > 0 ? Transparency.TRANSLUCENT : Transparency.OPAQUE;
+			VolatileImage vi = image instanceof VolatileImage ? (VolatileImage) image : null;
+			do {
+				int status = vi == null || w != width || h != height
+						? VolatileImage.IMAGE_INCOMPATIBLE : vi.validate(gc);
+				if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+					if (image != null) image.flush();
+					vi = gc.createCompatibleVolatileImage(w, h, transparency);
+					image = vi;
+					width = w;
+					height = h;
+					dirty = true;
+				} else if (status == VolatileImage.IMAGE_RESTORED) {
+					// The surface was restored but its old contents were not
+					dirty = true;
+				}
+				if (dirty) {
+					render(vi.createGraphics(), w, h);
+					dirty = false;
 				}
+				g.drawImage(vi, 0, 0, null);
+				// Lost contents (e.g. after a display change) mean the blit showed garbage; render again
+				dirty = vi.contentsLost();
+			} while (dirty);
+		}
+
+		private void paintBuffered(Graphics g, int w, int h) {
+			if (!(image instanceof BufferedImage) || w != width || h != height) {
+				if (image != null) image.flush();
+				image = new BufferedImage(w, h, arc > 0 ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+				width = w;
+				height = h;
+				dirty = true;
+			}
+			if (dirty) {
+				render(((BufferedImage) image).createGraphics(), w, h);
+				dirty = false;
 			}
+			g.drawImage(image, 0, 0, null);
+		}
 
+		private void render(Graphics2D g2d, int w, int h) {
+			g2d.setComposite(AlphaComposite.Clear);
+			g2d.fillRect(0, 0, w, h);
+			g2d.setComposite(AlphaComposite.SrcOver);
+			g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g2d.setPaint(new GradientPaint(0, 0, top, 0, h, bottom));
+			if (arc > 0) {
+				g2d.fillRoundRect(0, 0, w, h, arc, arc);
+			} else {
+				g2d.fillRect(0, 0, w, h);
+			}
+			if (label != null) {
+				// Draw text centered
+				g2d.setFont(font);
+				FontMetrics fm = g2d.getFontMetrics();
+				Rectangle2D r = fm.getStringBounds(label, g2d);
+				int x = (w - (int) r.getWidth()) / 2;
+				int y = (h - (int) r.getHeight()) / 2 + fm.getAscent();
+				g2d.setColor(Color.WHITE);
+				g2d.drawString(label, x, y);
+			}
 			g2d.dispose();
 		}
 	}
@@ -266,13 +505,27 @@ private Color answerPanelBg() { return infoPanelBg(); }
     private String playerName = "Player";
     private int score = 0;
     private int correctAnswer;
-    private int timeLeft = 30;
+    private long currentQuestion;
+    // Length of a round; may be shorter than a second
+    private static final long GAME_MILLIS = Math.max(1, Long.getLong("arithmeticgame.gameMillis", 30_000L));
+    // How often the time display is refreshed; scoring reads the clock directly
+    private static final int CLOCK_REFRESH_MS = 100;
+    private final GameClock gameClock = new GameClock(GAME_MILLIS * 1_000_000L);
+    // Set only when minimising the window is what paused the clock
+    private boolean pausedByIconify;
+    private int shownSeconds = -1;
     private Timer gameTimer;
-    private Random random = new Random();
+    // One-shot timer reused for every "next question" transition after an answer
+    private Timer feedbackTimer;
+    // Pause between showing the verdict and the next question; 0 moves on immediately
+    private int feedbackDelay = Math.max(0, Integer.getInteger("arithmeticgame.feedbackDelay", 1000));
+    private boolean awaitingNextQuestion;
+    private final AdaptiveDifficulty adaptiveDifficulty = new AdaptiveDifficulty();
+    private final QuestionPool questionPool = new QuestionPool(new QuestionEngine(adaptiveDifficulty));
     private String currentOperation = "Addition";
     private String currentDifficulty = "Easy";
     
-    // Leaderboard data structure
+    // Leaderboard entry as serialized by older versions (only read when converting old files)
     private static class LeaderboardEntry implements Comparable<LeaderboardEntry>, Serializable {
         private static final long serialVersionUID = 1L;
         String name;
@@ -289,12 +542,34 @@ private Color answerPanelBg() { return infoPanelBg(); }
         }
     }
     
-    private ArrayList<LeaderboardEntry> leaderboard = new ArrayList<>();
+    private static final long LAUNCH_NANOS = System.nanoTime();
+    
+    private Leaderboard leaderboard = new Leaderboard();
     private String leaderboardFile = "leaderboard.dat";
+    // All leaderboard disk I/O happens on the store's writer thread, never on the EDT
+    private final AsyncLeaderboardStore leaderboardStore = new AsyncLeaderboardStore(ArithmeticGame::readLegacyLeaderboard);
+    private boolean leaderboardLoading;
+    private int leaderboardGeneration;
+    private final ArrayList<Leaderboard.Entry> scoresWhileLoading = new ArrayList<>();
+    // Scores saved since the load began, kept until the file passes its checksum. The store
+    // writes them after moving a damaged file aside, so they are all a fresh board holds.
+    private final ArrayList<Leaderboard.Entry> scoresSinceLoad = new ArrayList<>();
+    private boolean leaderboardVerified = true;
+    // Probes the EDT for stalls; a debugging aid, started only with -Darithmeticgame.edtMonitor=true
+    private static final boolean EDT_MONITOR = Boolean.getBoolean("arithmeticgame.edtMonitor");
+    private final EdtMonitor edtMonitor = new EdtMonitor();
+    // Response times and hot-path timings; written to <base>.csv/.json on exit unless the property is empty
+    private final Telemetry telemetry = new Telemetry();
+    private static final String TELEMETRY_BASE = System.getProperty("arithmeticgame.telemetry", "arithmeticgame-telemetry");
+    // For failures nobody is left to see in a dialog, such as those during shutdown
+    private static final System.Logger LOG = System.getLogger(ArithmeticGame.class.getName());
+    // Every save fails the same way once the store is broken; one warning per load is enough
+    private boolean storeFailureShown;
     
     public ArithmeticGame() {
-        // Load leaderboard
-        loadLeaderboard();
+        // Make sure queued leaderboard writes reach the disk when the game exits
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdownPersistence));
+        telemetry.register();
         
         // Set up the frame
         setTitle("Arithmetic Game");
@@ -314,6 +589,34 @@ private Color answerPanelBg() { return infoPanelBg(); }
                     System.exit(0);
                 }
             }
+            
+            @Override
+            public void windowIconified(WindowEvent e) {
+                // A minimised game does not use up the round. A clock already paused by a
+                // modal dialog is left to that dialog to resume.
+                if (gameClock.isRunning()) {
+                    gameClock.pause();
+                    pausedByIconify = true;
+                }
+            }
+
+            @Override
+            public void windowDeiconified(WindowEvent e) {
+                if (pausedByIconify) {
+                    pausedByIconify = false;
+                    gameClock.resume();
+                }
+            }
+            
+            @Override
+            public void windowOpened(WindowEvent e) {
+                telemetry.recordTiming(Telemetry.Timing.WINDOW_VISIBLE, System.nanoTime() - LAUNCH_NANOS);
+                if (EDT_MONITOR) {
+                    edtMonitor.start();
+                }
+                // Load the leaderboard only once the window is on screen
+                loadLeaderboard();
+            }
         });
         
         // Enable full screen optimization
@@ -346,15 +649,8 @@ private Color answerPanelBg() { return infoPanelBg(); }
                 super.paintComponent(g);
                 Graphics2D g2d = (Graphics2D) g.create();
                 
-				// Create a gradient background
-                int w = getWidth();
-                int h = getHeight();
-				GradientPaint gp = new GradientPaint(
-					0, 0, titleGradientStart(),
-					0, h, titleGradientEnd()
-				);
-                g2d.setPaint(gp);
-                g2d.fillRect(0, 0, w, h);
+				// Blit the cached gradient background
+				titleBackground.paint(this, g2d, getWidth(), getHeight(), titleGradientStart(), titleGradientEnd());
                 g2d.dispose();
             }
         };
@@ -415,32 +711,15 @@ private Color answerPanelBg() { return infoPanelBg(); }
     }
     
     private JButton createStylishButton(String text, Color color) {
+        Color top = color.brighter();
+        Color bottom = color.darker();
+        GradientSurface face = new GradientSurface(15);
         JButton button = new JButton(text) {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
-                Graphics2D g2d = (Graphics2D) g.create();
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                
-                // Create gradient
-                GradientPaint gp = new GradientPaint(
-                    0, 0, color.brighter(),
-                    0, getHeight(), color.darker()
-                );
-                
-                g2d.setPaint(gp);
-                g2d.fillRoundRect(0, 0, getWidth(), getHeight(), 15, 15);
-                
-                // Draw text
-                FontMetrics fm = g2d.getFontMetrics();
-                Rectangle2D r = fm.getStringBounds(text, g2d);
-                
-                int x = (getWidth() - (int) r.getWidth()) / 2;
-                int y = (getHeight() - (int) r.getHeight()) / 2 + fm.getAscent();
-                
-                g2d.setColor(Color.WHITE);
-                g2d.drawString(text, x, y);
-                g2d.dispose();
+                // Gradient and label are rasterized once per size and blitted afterwards
+                face.paint(this, g, getWidth(), getHeight(), top, bottom, text, getFont());
             }
             
             @Override
@@ -483,15 +762,8 @@ private Color answerPanelBg() { return infoPanelBg(); }
                 super.paintComponent(g);
                 Graphics2D g2d = (Graphics2D) g.create();
                 
-				// Create a gradient background
-                int w = getWidth();
-                int h = getHeight();
-				GradientPaint gp = new GradientPaint(
-					0, 0, gameGradientStart(),
-					0, h, gameGradientEnd()
-				);
-                g2d.setPaint(gp);
-                g2d.fillRect(0, 0, w, h);
+				// Blit the cached gradient background
+				gameBackground.paint(this, g2d, getWidth(), getHeight(), gameGradientStart(), gameGradientEnd());
                 g2d.dispose();
             }
         };
@@ -523,6 +795,8 @@ private Color answerPanelBg() { return infoPanelBg(); }
             if (gameTimer != null && gameTimer.isRunning()) {
                 gameTimer.stop();
             }
+            gameClock.stop();
+            cancelNextQuestion();
             // Show title panel
             ((CardLayout)getContentPane().getLayout()).show(getContentPane(), "title");
         });
@@ -540,7 +814,7 @@ private Color answerPanelBg() { return infoPanelBg(); }
         scoreLabel.setFont(new Font("Arial", Font.BOLD, 24));
 		scoreLabel.setForeground(scoreTextColor());
         
-		timerLabel = new JLabel("Time: 30", JLabel.CENTER);
+		timerLabel = new JLabel("Time: " + (GAME_MILLIS + 999) / 1000, JLabel.CENTER);
         timerLabel.setFont(new Font("Arial", Font.BOLD, 24));
 		timerLabel.setForeground(normalText());
         
@@ -557,7 +831,7 @@ private Color answerPanelBg() { return infoPanelBg(); }
         operationComboBox.setFont(new Font("Arial", Font.PLAIN, 18));
         operationComboBox.setPreferredSize(new Dimension(150, 40));
         
-        String[] difficulties = {"Easy", "Medium", "Hard"};
+        String[] difficulties = {"Easy", "Medium", "Hard", "Adaptive"};
         difficultyComboBox = new JComboBox<>(difficulties);
         difficultyComboBox.setFont(new Font("Arial", Font.PLAIN, 18));
         difficultyComboBox.setPreferredSize(new Dimension(150, 40));
@@ -583,7 +857,7 @@ private Color answerPanelBg() { return infoPanelBg(); }
         controlsPanel.add(difficultyComboBox);
 
 		settingsButton = createStylishButton("Settings", new Color(96, 125, 139));
-		settingsButton.addActionListener(e -> openSettingsDialog());
+		settingsButton.addActionListener(e -> withClockPaused(this::openSettingsDialog));
 		controlsPanel.add(settingsButton);
         controlsPanel.add(backToTitleButton);
         topPanel.add(controlsPanel, BorderLayout.SOUTH);
@@ -612,7 +886,7 @@ private Color answerPanelBg() { return infoPanelBg(); }
         leaderboardButton = new JButton("Leaderboard");
         leaderboardButton.setFont(new Font("Arial", Font.BOLD, 20));
         leaderboardButton.setPreferredSize(new Dimension(150, 50));
-        leaderboardButton.addActionListener(e -> showLeaderboard());
+        leaderboardButton.addActionListener(e -> withClockPaused(this::showLeaderboard));
         
         bottomPanel.add(submitButton);
         bottomPanel.add(newGameButton);
@@ -640,8 +914,13 @@ private Color answerPanelBg() { return infoPanelBg(); }
         operationComboBox.addActionListener(e -> generateQuestion());
         difficultyComboBox.addActionListener(e -> generateQuestion());
         
+        // Questions are prepared ahead of time on a background thread
+        questionPool.start();
+        
 		// Initialize game timer
-        gameTimer = new Timer(1000, e -> updateTimer());
+        gameTimer = new Timer(CLOCK_REFRESH_MS, e -> updateTimer());
+        feedbackTimer = new Timer(feedbackDelay, e -> showNextQuestion());
+        feedbackTimer.setRepeats(false);
         
         // Center the frame on screen
         setLocationRelativeTo(null);
@@ -673,6 +952,7 @@ private Color answerPanelBg() { return infoPanelBg(); }
         themeComboBox.addActionListener(e -> {
 			String sel = (String) themeComboBox.getSelectedItem();
 			currentTheme = "Dark".equals(sel) ? ThemeMode.DARK : ThemeMode.LIGHT;
+			updatePalette();
 			getContentPane().setBackground(baseBg());
 			topPanel.setBackground(baseBg());
 			centerPanel.setBackground(baseBg());
@@ -683,7 +963,9 @@ private Color answerPanelBg() { return infoPanelBg(); }
 			infoPanel.setBackground(infoPanelBg());
 			scoreLabel.setForeground(scoreTextColor());
 			applyTextColors();
-			// Repaint panels to update gradients
+			// Drop the cached gradients and repaint panels to update them
+			titleBackground.invalidate();
+			gameBackground.invalidate();
 			titlePanel.repaint();
 			gamePanel.repaint();
 			if (questionPanel != null) questionPanel.repaint();
@@ -697,6 +979,7 @@ private Color answerPanelBg() { return infoPanelBg(); }
 			else if ("Sunset".equals(sel)) currentScheme = ColorScheme.SUNSET;
 			else if ("Neon".equals(sel)) currentScheme = ColorScheme.NEON;
 			else currentScheme = ColorScheme.BLUE;
+			updatePalette();
 			// Update backgrounds and repaint gradients
 			getContentPane().setBackground(baseBg());
 			topPanel.setBackground(baseBg());
@@ -707,6 +990,8 @@ private Color answerPanelBg() { return infoPanelBg(); }
 			answerField.setForeground(Color.BLACK);
 			infoPanel.setBackground(infoPanelBg());
 			scoreLabel.setForeground(scoreTextColor());
+			titleBackground.invalidate();
+			gameBackground.invalidate();
 			titlePanel.repaint();
 			gamePanel.repaint();
 			if (questionPanel != null) questionPanel.repaint();
@@ -781,7 +1066,6 @@ private Color answerPanelBg() { return infoPanelBg(); }
             int confirm = JOptionPane.showConfirmDialog(dialog, "Clear all leaderboard scores?", "Confirm Reset", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
             if (confirm == JOptionPane.YES_OPTION) {
                 clearLeaderboard();
-                saveLeaderboard();
                 JOptionPane.showMessageDialog(dialog, "Leaderboard cleared.", "Done", JOptionPane.INFORMATION_MESSAGE);
             }
         });
@@ -840,8 +1124,9 @@ private Color answerPanelBg() { return infoPanelBg(); }
     
     private void startNewGame() {
         // Reset timer
-        timeLeft = 30;
-        timerLabel.setText("Time: " + timeLeft);
+        gameClock.start();
+        shownSeconds = -1;
+        updateTimerLabel();
         if (gameTimer != null) {
             gameTimer.restart();
         }
@@ -864,128 +1149,54 @@ private Color answerPanelBg() { return infoPanelBg(); }
     }
     
     private void generateQuestion() {
-        String operation = (String) operationComboBox.getSelectedItem();
-        String difficulty = (String) difficultyComboBox.getSelectedItem();
-        
-        int num1, num2;
-        
-        // Set number range based on difficulty
-        switch (difficulty) {
-            case "Easy":
-                num1 = random.nextInt(10) + 1;  // 1-10
-                num2 = random.nextInt(10) + 1;
-                break;
-            case "Medium":
-                num1 = random.nextInt(50) + 1;  // 1-50
-                num2 = random.nextInt(25) + 1;
-                break;
-            case "Hard":
-            default:
-                num1 = random.nextInt(100) + 1;  // 1-100
-                num2 = random.nextInt(50) + 1;
-                break;
-        }
-        
-        // Note: clean division adjustment moved into the Division case below
-        
-        // Generate question based on operation
-        String question;
-        if (operation.equals("Mixed")) {
-            int opChoice = random.nextInt(5);
-            switch (opChoice) {
-                case 0:  // Addition
-                    question = num1 + " + " + num2 + " = ?";
-                    correctAnswer = num1 + num2;
-                    break;
-                case 1:  // Subtraction
-                    // Ensure positive result
-                    if (num1 < num2) {
-                        int temp = num1;
-                        num1 = num2;
-                        num2 = temp;
-                    }
-                    question = num1 + " - " + num2 + " = ?";
-                    correctAnswer = num1 - num2;
-                    break;
-                case 2:  // Multiplication
-                    question = num1 + " × " + num2 + " = ?";
-                    correctAnswer = num1 * num2;
-                    break;
-                case 3:  // Division
-                    // Ensure clean division
-                    num1 = num1 * num2;
-                    question = num1 + " ÷ " + num2 + " = ?";
-                    correctAnswer = num1 / num2;
-                    break;
-                case 4:  // Modulo
-                    question = num1 + " % " + num2 + " = ?";
-                    correctAnswer = num1 % num2;
-                    break;
-                default:
-                    question = num1 + " + " + num2 + " = ?";
-                    correctAnswer = num1 + num2;
-            }
-        } else {
-            switch (operation) {
-                case "Addition":
-                    question = num1 + " + " + num2 + " = ?";
-                    correctAnswer = num1 + num2;
-                    break;
-                case "Subtraction":
-                    // Ensure positive result
-                    if (num1 < num2) {
-                        int temp = num1;
-                        num1 = num2;
-                        num2 = temp;
-                    }
-                    question = num1 + " - " + num2 + " = ?";
-                    correctAnswer = num1 - num2;
-                    break;
-                case "Multiplication":
-                    question = num1 + " × " + num2 + " = ?";
-                    correctAnswer = num1 * num2;
-                    break;
-                case "Division":
-                    // Ensure clean division
-                    num1 = num1 * num2;
-                    question = num1 + " ÷ " + num2 + " = ?";
-                    correctAnswer = num1 / num2;
-                    break;
-                case "Modulo":
-                    question = num1 + " % " + num2 + " = ?";
-                    correctAnswer = num1 % num2;
-                    break;
-                default:
-                    question = num1 + " + " + num2 + " = ?";
-                    correctAnswer = num1 + num2;
-            }
-        }
+        // Whatever question was queued up is superseded by this one
+        cancelNextQuestion();
+        long start = System.nanoTime();
+        // Combo box order matches the engine's modes and difficulties
+        questionPool.select(QuestionEngine.Mode.fromIndex(operationComboBox.getSelectedIndex()),
+                QuestionEngine.Difficulty.fromIndex(difficultyComboBox.getSelectedIndex()));
+        long question = questionPool.next();
+        currentQuestion = question;
+        correctAnswer = QuestionEngine.answer(question);
+        gameClock.questionShown();
         
         if (questionPanel != null) {
-            questionPanel.setQuestion(question);
+            questionPanel.setQuestion(QuestionEngine.format(question));
         }
+        telemetry.recordTiming(Telemetry.Timing.GENERATE_QUESTION, System.nanoTime() - start);
     }
     
     private void checkAnswer() {
+        // This question has already been answered and the next one is on its way
+        if (awaitingNextQuestion) {
+            return;
+        }
+        // The display timer only checks the clock every 100 ms; an answer given after the
+        // deadline ends the round instead of scoring
+        if (gameClock.isStarted() && gameClock.isExpired()) {
+            updateTimer();
+            return;
+        }
         try {
-            int userAnswer = Integer.parseInt(answerField.getText().trim());
+            int userAnswer = parseAnswer(answerField.getText());
+            long responseNanos = gameClock.responseNanos();
+            long responseMillis = responseNanos / 1_000_000L;
+            telemetry.recordResponse(QuestionEngine.operator(currentQuestion),
+                    QuestionEngine.difficulty(currentQuestion), responseNanos);
+            adaptiveDifficulty.record(QuestionEngine.operator(currentQuestion), userAnswer == correctAnswer, responseNanos);
+            if (QuestionEngine.difficulty(currentQuestion) == QuestionEngine.Difficulty.ADAPTIVE) {
+                // Questions queued before this answer were sized for the old level
+                questionPool.discardQueued();
+            }
             
             if (userAnswer == correctAnswer) {
-                resultLabel.setText("Correct! 👍");
+                resultLabel.setText("Correct! 👍 (" + responseMillis + " ms)");
 				resultLabel.setForeground(new Color(0, 128, 0));  // Green
 				score += 10;
 				scoreLabel.setText("Your Score: " + score);
                 
                 // Generate a new question after a short delay
-                Timer delayTimer = new Timer(1000, e -> {
-                    // Just generate a new question without resetting the game
-                    generateQuestion();
-                    answerField.setText("");
-                    resultLabel.setText("");
-                    answerField.requestFocus();
-                });
-                delayTimer.setRepeats(false);
-                delayTimer.start();
+                scheduleNextQuestion();
             } else {
                 resultLabel.setText("Wrong! The correct answer is " + correctAnswer);
                 resultLabel.setForeground(Color.RED);
@@ -995,14 +1206,7 @@ private Color answerPanelBg() { return infoPanelBg(); }
 				scoreLabel.setText("Your Score: " + score);
 
                 // Generate a new question after a short delay
-                Timer delayTimerWrong = new Timer(1000, e2 -> {
-                    generateQuestion();
-                    answerField.setText("");
-                    resultLabel.setText("");
-                    answerField.requestFocus();
-                });
-                delayTimerWrong.setRepeats(false);
-                delayTimerWrong.start();
+                scheduleNextQuestion();
             }
         } catch (NumberFormatException e) {
             resultLabel.setText("Please enter a valid number!");
@@ -1010,12 +1214,71 @@ private Color answerPanelBg() { return infoPanelBg(); }
         }
     }
     
+    // Shows the next question once the feedback delay has passed. Only one transition is ever
+    // pending, so answering quickly cannot queue up several questions.
+    private void scheduleNextQuestion() {
+        awaitingNextQuestion = true;
+        if (feedbackDelay == 0) {
+            showNextQuestion();
+            return;
+        }
+        feedbackTimer.setInitialDelay(feedbackDelay);
+        feedbackTimer.restart();
+    }
+
+    private void cancelNextQuestion() {
+        if (feedbackTimer != null) {
+            feedbackTimer.stop();
+        }
+        awaitingNextQuestion = false;
+    }
+
+    private void showNextQuestion() {
+        // Just generate a new question without resetting the game
+        generateQuestion();
+        answerField.setText("");
+        resultLabel.setText("");
+        answerField.requestFocus();
+    }
+
+    // Changes the pause before the next question; applies from the next answer on
+    void setFeedbackDelay(int millis) {
+        feedbackDelay = Math.max(0, millis);
+    }
+
+    static int parseAnswer(String text) {
+        return Integer.parseInt(text.trim());
+    }
+    
+    // Runs a modal interaction without letting it eat into the round
+    private void withClockPaused(Runnable action) {
+        boolean wasRunning = gameClock.isRunning();
+        gameClock.pause();
+        try {
+            action.run();
+        } finally {
+            if (wasRunning) {
+                gameClock.resume();
+            }
+        }
+    }
+        
+    private void updateTimerLabel() {
+        int seconds = gameClock.remainingSeconds();
+        if (seconds != shownSeconds) {
+            shownSeconds = seconds;
+            timerLabel.setText("Time: " + seconds);
+        }
+    }
+
+    // Display refresh; the deadline itself comes from the clock, so late ticks cannot add time
     private void updateTimer() {
-        timeLeft--;
-        timerLabel.setText("Time: " + timeLeft);
+        updateTimerLabel();
         
-        if (timeLeft <= 0) {
+        if (gameClock.isStarted() && gameClock.isExpired()) {
             gameTimer.stop();
+            gameClock.stop();
+            cancelNextQuestion();
             answerField.setEnabled(false);
             submitButton.setEnabled(false);
             resultLabel.setText("Time's up! The answer was " + correctAnswer);
@@ -1044,7 +1307,6 @@ private Color answerPanelBg() { return infoPanelBg(); }
 
             if (sel == 0) { // Restart
                 score = 0;
-                timeLeft = 30;
                 startNewGame();
             } else if (sel == 1) { // Leaderboard
                 showLeaderboard();
@@ -1074,71 +1336,286 @@ private Color answerPanelBg() { return infoPanelBg(); }
     }
     
     private void addScoreToLeaderboard() {
-        // Add the new score without deleting previous history
-        leaderboard.add(new LeaderboardEntry(playerName, score));
-        
-        // Sort by score (highest first)
-        Collections.sort(leaderboard);
+        // Add the new score without deleting previous history; the index keeps it ranked
+        leaderboard.add(playerName, score);
         
-        // Save all scores to file
-        saveLeaderboard();
+        // Append only the new score to the journal
+        saveLeaderboard(playerName, score);
     }
 
-    // Clear leaderboard: remove entries and delete file
+    // Clear leaderboard: remove entries and delete the snapshot and log
     private void clearLeaderboard() {
         leaderboard.clear();
-        File file = new File(leaderboardFile);
-        if (file.exists()) {
-            // best-effort delete
-            try { file.delete(); } catch (Exception ignored) {}
-        }
+        scoresWhileLoading.clear();
+        scoresSinceLoad.clear();
+        leaderboardVerified = true;
+        leaderboardGeneration++;
+        leaderboardLoading = false;
+        leaderboardStore.clear().exceptionally(this::reportStoreFailure);
     }
     
     private void showLeaderboard() {
-        // Create a string with all leaderboard entries
-        StringBuilder sb = new StringBuilder();
-        sb.append("LEADERBOARD\n\n");
-        
+        // The table reads rows from the index only as they scroll into view, so this
+        // opens in constant time however many scores there are
+        LeaderboardTableModel model = new LeaderboardTableModel(leaderboard);
+        JTable table = new JTable(model);
+        table.setFont(new Font("Arial", Font.PLAIN, 16));
+        table.setRowHeight(24); // fixed height lets the viewport work out visible rows directly
+        table.setFillsViewportHeight(true);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getTableHeader().setReorderingAllowed(false);
+        // No row sorter: sorting would visit every row, and the index is already ranked
+        
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(420, 420));
+            
+        StringBuilder summary = new StringBuilder();
+        if (leaderboardLoading) {
+            summary.append("Loading scores... ");
+        }
         if (leaderboard.isEmpty()) {
-            sb.append("No scores yet!");
+            summary.append("No scores yet!");
         } else {
-            for (int i = 0; i < leaderboard.size(); i++) {
-                LeaderboardEntry entry = leaderboard.get(i);
-                sb.append(String.format("%d. %s: %d points\n", i + 1, entry.name, entry.score));
+            summary.append(model.getRowCount()).append(" scores");
+            int best = leaderboard.bestScore(playerName);
+            if (best >= 0) {
+                summary.append(" - best for ").append(playerName).append(": ").append(best)
+                        .append(" points (rank ").append(leaderboard.rankOf(best)).append(')');
             }
         }
+        JLabel summaryLabel = new JLabel(summary.toString());
+        summaryLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        
+        // Search jumps to the player's best entry through the name index
+        JTextField searchField = new JTextField(playerName, 14);
+        JButton findButton = new JButton("Find player");
+        ActionListener find = e -> {
+            String name = searchField.getText().trim();
+            int row = model.rowOf(name);
+            if (row < 0) {
+                summaryLabel.setText("No scores for " + name);
+                return;
+            }
+            table.setRowSelectionInterval(row, row);
+            table.scrollRectToVisible(table.getCellRect(row, 0, true));
+            summaryLabel.setText(name + " is ranked " + (row + 1) + " with " + model.getValueAt(row, 2) + " points");
+        };
+        searchField.addActionListener(find);
+        findButton.addActionListener(find);
         
-        // Show leaderboard in a dialog
-        JTextArea textArea = new JTextArea(sb.toString());
-        textArea.setEditable(false);
-        textArea.setFont(new Font("Arial", Font.PLAIN, 16));
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchPanel.add(new JLabel("Player:"));
+        searchPanel.add(searchField);
+        searchPanel.add(findButton);
         
-        JScrollPane scrollPane = new JScrollPane(textArea);
-        scrollPane.setPreferredSize(new Dimension(300, 300));
+        JButton analyticsButton = new JButton("Analytics");
+        analyticsButton.addActionListener(e -> showAnalytics(analyticsButton));
+        searchPanel.add(analyticsButton);
         
-        JOptionPane.showMessageDialog(this, scrollPane, "Leaderboard", JOptionPane.INFORMATION_MESSAGE);
+        JPanel content = new JPanel(new BorderLayout(0, 8));
+        content.add(searchPanel, BorderLayout.NORTH);
+        content.add(scrollPane, BorderLayout.CENTER);
+        content.add(summaryLabel, BorderLayout.SOUTH);
+        
+        JOptionPane.showMessageDialog(this, content, "Leaderboard", JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    // Reports over the whole saved history are computed off the EDT; the button stays
+    // disabled until the result is shown
+    private void showAnalytics(JButton source) {
+        source.setEnabled(false);
+        source.setText("Analysing...");
+        leaderboardStore.analyze(leaderboardFile).whenComplete((report, error) ->
+                SwingUtilities.invokeLater(() -> {
+                    source.setEnabled(true);
+                    source.setText("Analytics");
+                    if (error != null) {
+                        JOptionPane.showMessageDialog(this, "Could not read the saved scores:\n" + causeOf(error).getMessage(),
+                                "Analytics", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    showAnalyticsReport(report);
+                }));
+    }
+    
+    private void showAnalyticsReport(LeaderboardAnalytics.Report report) {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format("Saved scores: %d%nMean score: %.1f%n%n", report.records, report.mean));
+        for (int p = 0; p < report.percentiles.length; p++) {
+            summary.append(String.format("%5.0fth percentile: %d%n", report.percentiles[p], report.percentileScores[p]));
+        }
+        summary.append(String.format("%nPlayers: %d%nDays played: %d%n%nAnalysed in %.1f ms on %d threads",
+                report.players.size(), report.days.size(), report.elapsedNanos / 1e6, report.parallelism));
+        JTextArea summaryArea = new JTextArea(summary.toString());
+        summaryArea.setEditable(false);
+        summaryArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 14));
+        
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Summary", new JScrollPane(summaryArea));
+        tabs.addTab("Players", reportTable(new String[] {"Player", "Best", "Average", "Games"}, report.players,
+                (row, column) -> column == 0 ? row.name : column == 1 ? (Object) row.best
+                        : column == 2 ? String.format("%.1f", row.average) : (Object) row.games));
+        tabs.addTab("Days", reportTable(new String[] {"Day", "Games", "Average", "Best"}, report.days,
+                (row, column) -> column == 0 ? (row.day == null ? "undated" : row.day.toString())
+                        : column == 1 ? (Object) row.games
+                        : column == 2 ? String.format("%.1f", row.average) : (Object) row.best));
+        tabs.setPreferredSize(new Dimension(480, 420));
+        JOptionPane.showMessageDialog(this, tabs, "Leaderboard Analytics", JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    // Read-only table over report rows; cells are formatted only when they scroll into view
+    private static <T> JScrollPane reportTable(String[] columns, java.util.List<T> rows, BiFunction<T, Integer, Object> cell) {
+        JTable table = new JTable(new javax.swing.table.AbstractTableModel() {
+            @Override
+            public int getRowCount() {
+                return rows.size();
+            }
+            
+            @Override
+            public int getColumnCount() {
+                return columns.length;
+            }
+            
+            @Override
+            public String getColumnName(int column) {
+                return columns[column];
+            }
+            
+            @Override
+            public Object getValueAt(int row, int column) {
+                return cell.apply(rows.get(row), column);
+            }
+        });
+        table.setRowHeight(22);
+        table.setFillsViewportHeight(true);
+        table.getTableHeader().setReorderingAllowed(false);
+        return new JScrollPane(table);
     }
     
     private void loadLeaderboard() {
-        File file = new File(leaderboardFile);
-        if (!file.exists()) {
-            return; // No leaderboard file yet
+        long started = System.nanoTime();
+        int generation = ++leaderboardGeneration;
+        leaderboardLoading = true;
+        scoresWhileLoading.clear();
+        scoresSinceLoad.clear();
+        leaderboardVerified = false;
+        storeFailureShown = false;
+        leaderboardStore.load(leaderboardFile).whenComplete((loaded, error) ->
+                SwingUtilities.invokeLater(() -> installLeaderboard(loaded, error, generation, started)));
+        // The whole-file checksum runs after the leaderboard is already on screen
+        leaderboardStore.verify().whenComplete((ok, error) ->
+                SwingUtilities.invokeLater(() -> finishVerification(error, generation)));
+    }
+    
+    private void installLeaderboard(Leaderboard loaded, Throwable error, int generation, long started) {
+        // A newer load or a reset made this result stale
+        if (generation != leaderboardGeneration) {
+            return;
         }
-        
+        if (error != null) {
+            warnLeaderboardUnreadable(error);
+            loaded = new Leaderboard();
+        }
+        // Scores finished while the file was being read are not in it yet
+        for (Leaderboard.Entry entry : scoresWhileLoading) {
+            loaded.add(entry.name, entry.score);
+        }
+        scoresWhileLoading.clear();
+        leaderboard = loaded;
+        leaderboardLoading = false;
+        telemetry.recordTiming(Telemetry.Timing.LOAD_LEADERBOARD, System.nanoTime() - started);
+    }
+    
+    private void finishVerification(Throwable error, int generation) {
+        if (generation != leaderboardGeneration) {
+            return;
+        }
+        if (error != null) {
+            dropDamagedLeaderboard(error);
+        }
+        scoresSinceLoad.clear();
+        leaderboardVerified = true;
+    }
+    
+    // The loaded snapshot failed its checksum and the store has moved it aside. Scores
+    // saved since the load are on disk in the fresh files, so the new board starts with them.
+    private void dropDamagedLeaderboard(Throwable error) {
+        Leaderboard fresh = new Leaderboard();
+        for (Leaderboard.Entry entry : scoresSinceLoad) {
+            fresh.add(entry.name, entry.score);
+        }
+        leaderboard = fresh;
+        warnLeaderboardUnreadable(error);
+    }
+    
+    // The store has moved unreadable files aside rather than overwriting them; say so
+    // instead of quietly starting over with an empty leaderboard
+    private void warnLeaderboardUnreadable(Throwable error) {
+        JOptionPane.showMessageDialog(this, causeOf(error).getMessage() + "\nNew scores will start a fresh leaderboard.",
+                "Leaderboard", JOptionPane.WARNING_MESSAGE);
+    }
+    
+    // The store's futures wrap the I/O error; that is the one worth showing
+    private static Throwable causeOf(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+    
+    // Runs on the writer thread: converts files written by older versions, which hold a serialized list
+    @SuppressWarnings("unchecked")
+    private static LeaderboardColumns readLegacyLeaderboard(String file) throws IOException, ClassNotFoundException {
+        ArrayList<LeaderboardEntry> legacy;
         try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            leaderboard = (ArrayList<LeaderboardEntry>) ois.readObject();
-        } catch (Exception e) {
-            e.printStackTrace();
-            // If there's an error, start with an empty leaderboard
-            leaderboard = new ArrayList<>();
+            legacy = (ArrayList<LeaderboardEntry>) ois.readObject();
+        }
+        LeaderboardColumns records = new LeaderboardColumns();
+        for (LeaderboardEntry entry : legacy) {
+            records.add(entry.name, entry.score, 0L);
         }
+        return records;
     }
     
-    private void saveLeaderboard() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(leaderboardFile))) {
-            oos.writeObject(leaderboard);
+    private void saveLeaderboard(String name, int entryScore) {
+        if (leaderboardLoading) {
+            scoresWhileLoading.add(new Leaderboard.Entry(name, entryScore));
+        }
+        if (!leaderboardVerified) {
+            scoresSinceLoad.add(new Leaderboard.Entry(name, entryScore));
+        }
+        // Timed until the score is on disk, including any wait behind earlier writes
+        long start = System.nanoTime();
+        leaderboardStore.append(name, entryScore)
+                .thenRun(() -> telemetry.recordTiming(Telemetry.Timing.SAVE_LEADERBOARD, System.nanoTime() - start))
+                .exceptionally(this::reportStoreFailure);
+    }
+    
+    // Runs on the writer thread
+    private Void reportStoreFailure(Throwable error) {
+        SwingUtilities.invokeLater(() -> {
+            if (!storeFailureShown) {
+                storeFailureShown = true;
+                JOptionPane.showMessageDialog(this, "Scores could not be saved:\n" + causeOf(error).getMessage(),
+                        "Leaderboard", JOptionPane.WARNING_MESSAGE);
+            }
+        });
+        return null;
+    }
+    
+    private void shutdownPersistence() {
+        if (EDT_MONITOR) {
+            edtMonitor.stop();
+            System.err.println(edtMonitor.summary());
+        }
+        if (!TELEMETRY_BASE.isEmpty()) {
+            try {
+                telemetry.export(TELEMETRY_BASE);
+            } catch (IOException e) {
+                LOG.log(System.Logger.Level.WARNING, "Telemetry export failed", e);
+            }
+        }
+        try {
+            leaderboardStore.close();
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.log(System.Logger.Level.WARNING, "Leaderboard store did not close cleanly", e);
         }
     }
     
@@ -1147,7 +1624,7 @@ private Color answerPanelBg() { return infoPanelBg(); }
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception e) {
-            e.printStackTrace();
+            LOG.log(System.Logger.Level.INFO, "System look and feel unavailable; using the default", e);
         }
         
         // Create and show the game window
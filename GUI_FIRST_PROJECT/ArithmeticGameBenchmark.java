@@ -0,0 +1,402 @@
+// ArithmeticGameBenchmark.java - Microbenchmarks for the ArithmeticGame hot paths
+//
+// Usage: java ArithmeticGameBenchmark [name-filter] [--sizes=1000,100000]
+//
+// Prints one CSV line per benchmark: name,param,ns/op,ops/s,bytes/op
+// Each benchmark is calibrated to run for at least MIN_BATCH_NANOS per batch, warmed
+// up, then measured over several batches. Allocation is read from the thread's
+// allocated-bytes counter (the same figure JMH's GC profiler reports as gc.alloc.rate.norm),
+// so an allocation regression shows up directly in bytes/op.
+//
+// This is a plain harness, not JMH: every benchmark runs in this one JVM without forks,
+// and results only feed a volatile sink, so compare runs on the same machine rather than
+// reading the numbers as absolutes. Leaderboard sizes of 10000000 must be asked for with
+// --sizes and are skipped unless the heap (-Xmx) holds HEAP_BYTES_PER_RECORD per record.
+import javax.swing.JTextField;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+public class ArithmeticGameBenchmark {
+    private static final long MIN_BATCH_NANOS = 100_000_000L;
+    private static final int WARMUP_BATCHES = 3;
+    private static final int MEASURED_BATCHES = 5;
+    // Peak heap the leaderboard benchmarks need per record, with the object-per-score copy alive
+    private static final long HEAP_BYTES_PER_RECORD = 256;
+
+    // Runs the operation the given number of times and returns something derived from the results
+    interface Operation {
+        long run(int iterations) throws Exception;
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static volatile long sink;
+    private static String filter = "";
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        int[] sizes = {1_000, 100_000};
+        for (String arg : args) {
+            if (arg.startsWith("--sizes=")) {
+                String list = arg.substring("--sizes=".length()).trim();
+                String[] parts = list.isEmpty() ? new String[0] : list.split(",");
+                sizes = new int[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    sizes[i] = Integer.parseInt(parts[i].trim());
+                }
+            } else {
+                filter = arg;
+            }
+        }
+
+        System.out.println("benchmark,param,ns/op,ops/s,bytes/op");
+        questionBenchmarks();
+        answerBenchmarks();
+        renderBenchmarks();
+        paletteBenchmarks();
+        telemetryBenchmarks();
+        for (int size : sizes) {
+            if ((long) size * HEAP_BYTES_PER_RECORD > Runtime.getRuntime().maxMemory()) {
+                System.err.printf("Skipping leaderboard benchmarks at %d: needs -Xmx%dm%n",
+                        size, (long) size * HEAP_BYTES_PER_RECORD >> 20);
+                continue;
+            }
+            leaderboardBenchmarks(size);
+        }
+        contentionBenchmarks();
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void questionBenchmarks() throws Exception {
+        QuestionEngine engine = new QuestionEngine(1);
+        for (QuestionEngine.Mode mode : QuestionEngine.Mode.values()) {
+            bench("generateQuestion", mode.name(), n -> {
+                long acc = 0;
+                for (int i = 0; i < n; i++) {
+                    acc += engine.next(mode, QuestionEngine.Difficulty.HARD);
+                }
+                return acc;
+            });
+            bench("generateQuestion+format", mode.name(), n -> {
+                long acc = 0;
+                for (int i = 0; i < n; i++) {
+                    acc += QuestionEngine.format(engine.next(mode, QuestionEngine.Difficulty.HARD)).length();
+                }
+                return acc;
+            });
+        }
+    }
+
+    private static void answerBenchmarks() throws Exception {
+        String[] answers = {"7", " 42 ", "5000", "123", "  9"};
+        bench("checkAnswer.parse", "valid", n -> {
+            long acc = 0;
+            for (int i = 0; i < n; i++) {
+                acc += ArithmeticGame.parseAnswer(answers[i % answers.length]);
+            }
+            return acc;
+        });
+    }
+
+    private static void renderBenchmarks() throws Exception {
+        BufferedImage image = new BufferedImage(1600, 300, BufferedImage.TYPE_INT_ARGB);
+        JTextField answerField = new JTextField(10);
+        ArithmeticGame.QuestionRenderer renderer = new ArithmeticGame.QuestionRenderer();
+        Color fill = new Color(210, 235, 252);
+        Color border = new Color(100, 181, 246);
+        String question = "3762 × 38 = ?";
+        bench("QuestionPanel.paint", image.getWidth() + "x" + image.getHeight(), n -> {
+            Graphics2D g2d = image.createGraphics();
+            try {
+                for (int i = 0; i < n; i++) {
+                    renderer.paint(g2d, image.getWidth(), image.getHeight(), question, fill, border, Color.BLACK, answerField);
+                }
+            } finally {
+                g2d.dispose();
+            }
+            return image.getRGB(10, 10);
+        });
+    }
+
+    // Colours read once per frame by the panel painters; "lookup" is the precomputed table,
+    // "build" is what every paint used to pay for allocating the same colours on each call
+    private static void paletteBenchmarks() throws Exception {
+        ArithmeticGame.ThemeMode[] themes = ArithmeticGame.ThemeMode.values();
+        ArithmeticGame.ColorScheme[] schemes = ArithmeticGame.ColorScheme.values();
+        bench("theme.palette", "lookup", n -> {
+            long acc = 0;
+            for (int i = 0; i < n; i++) {
+                acc += frameColors(ArithmeticGame.Palette.of(themes[i & 1], schemes[i % schemes.length]));
+            }
+            return acc;
+        });
+        bench("theme.palette", "build", n -> {
+            long acc = 0;
+            for (int i = 0; i < n; i++) {
+                acc += frameColors(new ArithmeticGame.Palette(themes[i & 1], schemes[i % schemes.length]));
+            }
+            return acc;
+        });
+    }
+
+    private static long frameColors(ArithmeticGame.Palette palette) {
+        return palette.titleGradientStart.getRGB() + palette.titleGradientEnd.getRGB()
+                + palette.gameGradientStart.getRGB() + palette.gameGradientEnd.getRGB()
+                + palette.infoPanelBg.getRGB() + palette.boxBorder.getRGB() + palette.normalText.getRGB();
+    }
+
+    // Recording must stay allocation-free since it runs inside paint and question generation
+    private static void telemetryBenchmarks() throws Exception {
+        Telemetry telemetry = new Telemetry();
+        bench("telemetry.record", "timing", n -> {
+            for (int i = 0; i < n; i++) {
+                telemetry.recordTiming(Telemetry.Timing.PAINT, (i * 2654435761L) & 0xFFFFFFL);
+            }
+            return telemetry.timing(Telemetry.Timing.PAINT).count();
+        });
+        bench("telemetry.record", "response", n -> {
+            for (int i = 0; i < n; i++) {
+                telemetry.recordResponse(QuestionEngine.Operation.fromIndex(i % 5),
+                        QuestionEngine.Difficulty.HARD, (i * 2654435761L) & 0xFFFFFFFFFL);
+            }
+            return telemetry.getAnswerCount();
+        });
+    }
+
+    private static void leaderboardBenchmarks(int size) throws Exception {
+        Path dir = Files.createTempDirectory("leaderboard-bench");
+        String file = dir.resolve("leaderboard.dat").toString();
+        String param = String.valueOf(size);
+        try {
+            Random random = new Random(size);
+            String[] players = new String[1000];
+            for (int i = 0; i < players.length; i++) {
+                players[i] = "player" + i;
+            }
+            LeaderboardColumns records = new LeaderboardColumns();
+            for (int i = 0; i < size; i++) {
+                records.add(players[random.nextInt(players.length)], random.nextInt(600), i);
+            }
+
+            // Sort and write a full snapshot, as compaction does
+            benchOnce("leaderboard.sortAndSave", param, size, () -> {
+                try (LeaderboardJournal journal = new LeaderboardJournal(file)) {
+                    journal.replace(records);
+                }
+                return records.size();
+            });
+
+            // History held as one object per score, each with its own name String as the old
+            // ArrayList<LeaderboardEntry> was read back, against the columnar store
+            retained("history.heap", "objects-" + param, size, () -> {
+                ArrayList<Leaderboard.Entry> entries = new ArrayList<>();
+                for (int i = 0; i < records.size(); i++) {
+                    entries.add(new Leaderboard.Entry(new String(records.name(i)), records.score(i)));
+                }
+                return entries;
+            });
+            retained("history.heap", "columns-" + param, size, () -> {
+                LeaderboardColumns columns = new LeaderboardColumns();
+                for (int i = 0; i < records.size(); i++) {
+                    columns.add(new String(records.name(i)), records.score(i), records.timestamp(i));
+                }
+                return columns;
+            });
+            benchOnce("history.sort", "objects-" + param, size, () -> {
+                ArrayList<Leaderboard.Entry> entries = new ArrayList<>(records.size());
+                for (int i = 0; i < records.size(); i++) {
+                    entries.add(new Leaderboard.Entry(records.name(i), records.score(i)));
+                }
+                entries.sort((a, b) -> Integer.compare(b.score, a.score));
+                return entries.get(0).score;
+            });
+            benchOnce("history.sort", "columns-" + param, size, () -> records.rowsByScore()[0]);
+
+            benchOnce("leaderboard.load", param, size, () -> {
+                try (LeaderboardJournal journal = new LeaderboardJournal(file)) {
+                    return new Leaderboard(journal.load((name, score, timestamp) -> {})).size();
+                }
+            });
+
+            try (LeaderboardJournal journal = new LeaderboardJournal(file)) {
+                Leaderboard leaderboard = new Leaderboard(journal.load((name, score, timestamp) -> {}));
+                // One synced write per score, against a burst through the write-behind store
+                bench("leaderboard.burstSave", "perScore-" + param, n -> {
+                    for (int i = 0; i < n; i++) {
+                        journal.append("bench", i & 511);
+                    }
+                    return n;
+                });
+                bench("leaderboard.rankLookup", param, n -> {
+                    long acc = 0;
+                    for (int i = 0; i < n; i++) {
+                        acc += leaderboard.get((int) ((i * 2654435761L) % leaderboard.size())).score;
+                    }
+                    return acc;
+                });
+            }
+            try (AsyncLeaderboardStore store = new AsyncLeaderboardStore(f -> new LeaderboardColumns())) {
+                store.load(file).get();
+                bench("leaderboard.burstSave", "writeBehind-" + param, n -> {
+                    CompletableFuture<Void> last = null;
+                    for (int i = 0; i < n; i++) {
+                        last = store.append("bench", i & 511);
+                    }
+                    last.get();
+                    return n;
+                });
+            }
+        } finally {
+            deleteTree(dir);
+        }
+    }
+
+    // Score submissions from 1 to 64 writer threads at once into one Leaderboard behind a lock,
+    // as TournamentServer records them. Each batch starts from an empty board. bytes/op only
+    // counts the calling thread, so it is not meaningful for these.
+    private static void contentionBenchmarks() throws Exception {
+        String[] names = new String[1000];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "player" + i;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        try {
+            for (int threads = 1; threads <= 64; threads *= 2) {
+                int writers = threads;
+                bench("leaderboard.synchronizedAdd", writers + "threads", n -> {
+                    Leaderboard board = new Leaderboard();
+                    runWriters(pool, writers, n, i -> {
+                        synchronized (board) {
+                            board.add(names[i % names.length], i & 1023);
+                        }
+                    });
+                    return board.size();
+                });
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    interface Submission {
+        void submit(int i);
+    }
+
+    // Splits n submissions across the given number of writers and waits for all of them
+    private static void runWriters(ExecutorService pool, int writers, int n, Submission submission) throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>(writers);
+        for (int w = 0; w < writers; w++) {
+            int from = (int) ((long) n * w / writers);
+            int to = (int) ((long) n * (w + 1) / writers);
+            tasks.add(() -> {
+                for (int i = from; i < to; i++) {
+                    submission.submit(i * 31 + 7);
+                }
+                return null;
+            });
+        }
+        for (Future<Void> done : pool.invokeAll(tasks)) {
+            done.get();
+        }
+    }
+
+    // Calibrated, warmed-up measurement for cheap operations
+    private static void bench(String name, String param, Operation op) throws Exception {
+        if (!(name + "," + param).contains(filter)) {
+            return;
+        }
+        int iterations = 1;
+        while (true) {
+            long start = System.nanoTime();
+            sink += op.run(iterations);
+            if (System.nanoTime() - start >= MIN_BATCH_NANOS || iterations >= 1 << 30) {
+                break;
+            }
+            iterations *= 2;
+        }
+        for (int i = 0; i < WARMUP_BATCHES; i++) {
+            sink += op.run(iterations);
+        }
+        long thread = Thread.currentThread().getId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_BATCHES; i++) {
+            sink += op.run(iterations);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = THREADS.getThreadAllocatedBytes(thread) - bytesBefore;
+        report(name, param, elapsed, (long) iterations * MEASURED_BATCHES, bytes);
+    }
+
+    interface Task {
+        long run() throws Exception;
+    }
+
+    // Single-shot measurement for whole-dataset operations; reported per record
+    private static void benchOnce(String name, String param, int records, Task task) throws Exception {
+        if (!(name + "," + param).contains(filter)) {
+            return;
+        }
+        sink += task.run(); // warm-up
+        long thread = Thread.currentThread().getId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        sink += task.run();
+        long elapsed = System.nanoTime() - start;
+        long bytes = THREADS.getThreadAllocatedBytes(thread) - bytesBefore;
+        report(name, param, elapsed, records, bytes);
+    }
+
+    interface Builder {
+        Object build() throws Exception;
+    }
+
+    // Builds a structure once and reports the heap it keeps alive per row (bytes/op column)
+    private static void retained(String name, String param, int rows, Builder builder) throws Exception {
+        if (!(name + "," + param).contains(filter)) {
+            return;
+        }
+        long before = usedHeapAfterGc();
+        long start = System.nanoTime();
+        Object built = builder.build();
+        long elapsed = System.nanoTime() - start;
+        long after = usedHeapAfterGc();
+        sink += System.identityHashCode(built);
+        report(name, param, elapsed, rows, after - before);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void report(String name, String param, long elapsedNanos, long ops, long bytes) {
+        System.out.printf("%s,%s,%.2f,%.0f,%.1f%n", name, param,
+                (double) elapsedNanos / ops, ops * 1e9 / elapsedNanos, (double) bytes / ops);
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
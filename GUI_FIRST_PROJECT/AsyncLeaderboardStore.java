@@ -0,0 +1,221 @@
+// AsyncLeaderboardStore.java - Runs all leaderboard disk I/O on one background writer thread
+//
+// Every call queues a task for the writer and returns a future right away, so the
+// Swing event dispatch thread never touches the disk. Tasks run in submission order,
+// which keeps appends, clears and reloads consistent with each other.
+//
+// Appends are write-behind: scores submitted while the writer is busy join one open
+// batch, which is written with a single write and fsync. A burst of submissions costs
+// one sync instead of one each, and every append's future completes only once its
+// score is durable. A load or clear closes the open batch, so scores submitted after
+// it are written after it.
+//
+// If damaged files cannot even be moved aside, the store has no journal until the next
+// load; every append and clear in the meantime fails with an error saying so.
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.*;
+
+public class AsyncLeaderboardStore implements Closeable {
+    // Converts a leaderboard file written by an older version into journal records
+    public interface LegacyReader {
+        LeaderboardColumns read(String file) throws Exception;
+    }
+
+    private final LegacyReader legacyReader;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "leaderboard-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private LeaderboardJournal journal; // only touched by the writer thread
+    private IOException unavailable;    // why journal is null after a failed load; writer thread only
+    private Batch openBatch;            // guarded by this
+
+    // Scores waiting for the writer, with the futures to complete once they are on disk
+    private static final class Batch {
+        final LeaderboardColumns records = new LeaderboardColumns();
+        final ArrayList<CompletableFuture<Void>> done = new ArrayList<>();
+    }
+
+    public AsyncLeaderboardStore(LegacyReader legacyReader) {
+        this.legacyReader = legacyReader;
+    }
+
+    // Switches to the given file and replays it into a fresh leaderboard
+    // If the files cannot be read they are moved aside (see LeaderboardJournal.quarantine),
+    // the journal starts empty, and the future fails with an error naming where they went
+    public CompletableFuture<Leaderboard> load(String file) {
+        sealBatch();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                closeJournal();
+                journal = new LeaderboardJournal(file);
+                unavailable = null;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            try {
+                if (journal.isLegacySnapshot()) {
+                    journal.replace(legacyReader.read(file));
+                }
+                // The snapshot stays mapped; only scores still in the log are read onto the heap
+                LeaderboardColumns tail = new LeaderboardColumns();
+                Leaderboard loaded = new Leaderboard(journal.load(tail::add));
+                for (int i = 0; i < tail.size(); i++) {
+                    loaded.add(tail.name(i), tail.score(i));
+                }
+                return loaded;
+            } catch (Exception e) {
+                throw new CompletionException(quarantine(e));
+            }
+        }, writer);
+    }
+
+    // Checks the loaded snapshot against its checksum, queued behind the load so the leaderboard
+    // can be shown first. A damaged snapshot is moved aside just as a failed load is.
+    public CompletableFuture<Void> verify() {
+        sealBatch();
+        return CompletableFuture.runAsync(() -> {
+            try {
+                if (journal != null) {
+                    journal.verifySnapshot();
+                }
+            } catch (IOException e) {
+                throw new CompletionException(quarantine(e));
+            }
+        }, writer);
+    }
+
+    public CompletableFuture<Void> append(String name, int score) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        long timestamp = System.currentTimeMillis();
+        synchronized (this) {
+            if (openBatch == null) {
+                Batch batch = new Batch();
+                openBatch = batch;
+                try {
+                    writer.execute(() -> writeBatch(batch));
+                } catch (RejectedExecutionException e) {
+                    openBatch = null;
+                    done.completeExceptionally(e);
+                    return done;
+                }
+            }
+            openBatch.records.add(name, score, timestamp);
+            openBatch.done.add(done);
+        }
+        return done;
+    }
+
+    public CompletableFuture<Void> clear() {
+        sealBatch();
+        return run(() -> journal().clear());
+    }
+
+    // Reports over the persisted history. The files are opened on the writer thread, after
+    // every queued append, so the report matches what was saved; the analysis itself runs
+    // on the common ForkJoinPool and never holds up later writes.
+    public CompletableFuture<LeaderboardAnalytics.Report> analyze(String file) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return LeaderboardAnalytics.Dataset.open(file);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, writer).thenApplyAsync(data -> {
+            try {
+                data.verify();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            return LeaderboardAnalytics.analyze(data, ForkJoinPool.commonPool());
+        });
+    }
+
+    // Waits briefly for queued writes, then syncs and closes the journal
+    @Override
+    public void close() throws IOException {
+        if (writer.isShutdown()) {
+            return;
+        }
+        sealBatch();
+        Future<?> closing = run(this::closeJournal);
+        writer.shutdown();
+        try {
+            closing.get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IOException("Leaderboard writer did not finish", e);
+        }
+    }
+
+    private interface IoTask {
+        void run() throws IOException;
+    }
+
+    private CompletableFuture<Void> run(IoTask task) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                task.run();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, writer);
+    }
+
+    // Later appends start a new batch, queued behind whatever is submitted next
+    private synchronized void sealBatch() {
+        openBatch = null;
+    }
+
+    // Runs on the writer thread
+    private void writeBatch(Batch batch) {
+        synchronized (this) {
+            if (openBatch == batch) {
+                openBatch = null;
+            }
+        }
+        try {
+            journal().append(batch.records);
+        } catch (IOException e) {
+            batch.done.forEach(f -> f.completeExceptionally(e));
+            return;
+        }
+        batch.done.forEach(f -> f.complete(null));
+    }
+
+    // Runs on the writer thread: keeps unreadable files for recovery instead of overwriting them
+    private IOException quarantine(Exception cause) {
+        try {
+            Path moved = journal.quarantine();
+            return new IOException("Saved scores could not be read"
+                    + (moved == null ? "" : " and were moved to " + moved), cause);
+        } catch (IOException e) {
+            e.addSuppressed(cause);
+            journal = null; // leave the files alone; writes fail until the next load
+            unavailable = e;
+            return e;
+        }
+    }
+
+    // Runs on the writer thread
+    private LeaderboardJournal journal() throws IOException {
+        if (journal == null) {
+            throw unavailable != null
+                    ? new IOException("Leaderboard store unavailable; scores are not being saved", unavailable)
+                    : new IOException("No leaderboard file has been loaded");
+        }
+        return journal;
+    }
+
+    private void closeJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+}
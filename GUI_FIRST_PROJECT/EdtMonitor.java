@@ -0,0 +1,64 @@
+// EdtMonitor.java - Measures how long the Swing event dispatch thread is blocked
+//
+// A daemon thread posts a probe to the EDT every PROBE_INTERVAL_MS and records how
+// late it runs. Any delay longer than one 60 Hz frame counts as dropped frames.
+import javax.swing.SwingUtilities;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EdtMonitor {
+    private static final long PROBE_INTERVAL_MS = 50;
+    private static final long FRAME_NANOS = 1_000_000_000L / 60;
+
+    private final AtomicLong probes = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong worstStallNanos = new AtomicLong();
+    private volatile boolean running;
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread probeThread = new Thread(() -> {
+            while (running) {
+                long posted = System.nanoTime();
+                try {
+                    SwingUtilities.invokeAndWait(() -> record(System.nanoTime() - posted));
+                    Thread.sleep(PROBE_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    return;
+                }
+            }
+        }, "edt-monitor");
+        probeThread.setDaemon(true);
+        probeThread.start();
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public long droppedFrames() {
+        return droppedFrames.get();
+    }
+
+    public long worstStallMillis() {
+        return worstStallNanos.get() / 1_000_000;
+    }
+
+    public String summary() {
+        return String.format("EDT probes: %d, dropped frames: %d, worst stall: %d ms",
+                probes.get(), droppedFrames(), worstStallMillis());
+    }
+
+    private void record(long delayNanos) {
+        probes.incrementAndGet();
+        if (delayNanos > FRAME_NANOS) {
+            droppedFrames.addAndGet(delayNanos / FRAME_NANOS);
+        }
+        worstStallNanos.accumulateAndGet(delayNanos, Math::max);
+    }
+}
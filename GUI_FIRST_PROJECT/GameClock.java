@@ -0,0 +1,101 @@
+// GameClock.java - Monotonic countdown for an ArithmeticGame round
+//
+// Time is measured with System.nanoTime, so the clock cannot drift when the EDT is
+// busy and is unaffected by wall-clock changes. The display only reads the clock;
+// how often it refreshes has no effect on how much time the player gets.
+// Paused time counts neither against the round nor towards response times.
+// Not thread-safe; the game only touches it from the EDT.
+import java.util.function.LongSupplier;
+
+public class GameClock {
+    private final LongSupplier nanoTime;
+    private long durationNanos;
+    private long elapsedBeforeResume; // active time accumulated before the current run
+    private long resumedAt;           // nanoTime when the clock last started running
+    private boolean running;
+    private boolean started;
+    private long questionShownAt;     // active time when the current question appeared
+
+    public GameClock(long durationNanos) {
+        this(durationNanos, System::nanoTime);
+    }
+
+    // Lets callers drive the clock from another time source, e.g. a fake one
+    GameClock(long durationNanos, LongSupplier nanoTime) {
+        this.durationNanos = durationNanos;
+        this.nanoTime = nanoTime;
+    }
+
+    public void setDuration(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    // Starts a new round from the full duration
+    public void start() {
+        elapsedBeforeResume = 0;
+        questionShownAt = 0;
+        resumedAt = nanoTime.getAsLong();
+        started = true;
+        running = true;
+    }
+
+    // Ends the round early; remaining time is kept until the next start()
+    public void stop() {
+        pause();
+        started = false;
+    }
+
+    public void pause() {
+        if (running) {
+            elapsedBeforeResume += nanoTime.getAsLong() - resumedAt;
+            running = false;
+        }
+    }
+
+    public void resume() {
+        if (started && !running && !isExpired()) {
+            resumedAt = nanoTime.getAsLong();
+            running = true;
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // True while a round is in progress, paused or not
+    public boolean isStarted() {
+        return started;
+    }
+
+    public long elapsedNanos() {
+        return running ? elapsedBeforeResume + nanoTime.getAsLong() - resumedAt : elapsedBeforeResume;
+    }
+
+    public long remainingNanos() {
+        return Math.max(0, durationNanos - elapsedNanos());
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() == 0;
+    }
+
+    // Whole seconds left, rounded up so the display shows 0 only once time is really up
+    public int remainingSeconds() {
+        return (int) ((remainingNanos() + 999_999_999L) / 1_000_000_000L);
+    }
+
+    // Starts timing the response to a newly shown question
+    public void questionShown() {
+        questionShownAt = elapsedNanos();
+    }
+
+    // Active time since the current question was shown
+    public long responseNanos() {
+        return elapsedNanos() - questionShownAt;
+    }
+
+    public long responseMillis() {
+        return responseNanos() / 1_000_000L;
+    }
+}
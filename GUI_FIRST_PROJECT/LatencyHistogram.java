@@ -0,0 +1,114 @@
+// LatencyHistogram.java - Fixed-size, allocation-free histogram of durations
+//
+// Values are counted in log-linear buckets the way HdrHistogram does it: every power
+// of two is split into SUB_BUCKETS/2 linear steps, so any recorded value is reported
+// to within 1/64 (about 1.6%) of its true size, from 1 ns up to HIGHEST (~18 minutes).
+// Larger values are clamped. record() only touches an AtomicLongArray slot and a few
+// atomic counters, so it is safe to call from any thread, including paint code.
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;   // 128
+    private static final int HALF = SUB_BUCKETS / 2;                // 64
+    static final long HIGHEST = (1L << 40) - 1;
+    private static final int LENGTH = index(HIGHEST) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(LENGTH);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        long v = Math.min(Math.max(value, 0), HIGHEST);
+        counts.incrementAndGet(index(v));
+        total.incrementAndGet();
+        sum.addAndGet(v);
+        long m;
+        while (v < (m = min.get()) && !min.compareAndSet(m, v)) {
+            // retry
+        }
+        while (v > (m = max.get()) && !max.compareAndSet(m, v)) {
+            // retry
+        }
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    public long min() {
+        return count() == 0 ? 0 : min.get();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public double mean() {
+        long n = count();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    // Smallest recorded value v such that the given percentage of values are at most v
+    // (to bucket precision); 0 when nothing has been recorded
+    public long valueAtPercentile(double percentile) {
+        long n = count();
+        if (n == 0) {
+            return 0;
+        }
+        long wanted = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * n));
+        long seen = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            seen += counts.get(i);
+            if (seen >= wanted) {
+                return Math.min(highestEquivalent(i), max());
+            }
+        }
+        return max();
+    }
+
+    // Adds every value recorded by the other histogram into this one
+    public void add(LatencyHistogram other) {
+        long n = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+                n += c;
+            }
+        }
+        if (n == 0) {
+            return;
+        }
+        total.addAndGet(n);
+        sum.addAndGet(other.sum.get());
+        min.accumulateAndGet(other.min.get(), Math::min);
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    public void reset() {
+        for (int i = 0; i < LENGTH; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        sum.set(0);
+        min.set(Long.MAX_VALUE);
+        max.set(0);
+    }
+
+    // Values below SUB_BUCKETS map to themselves; above that, shift so the value falls in [HALF, SUB_BUCKETS)
+    static int index(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1));
+        return shift * HALF + (int) (value >>> shift);
+    }
+
+    // Largest value that maps to the given bucket
+    static long highestEquivalent(int index) {
+        int shift = Math.max(0, index / HALF - 1);
+        long sub = index - (long) shift * HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,234 @@
+// Leaderboard.java - Ranked score index for the ArithmeticGame
+//
+// Scores are bucketed by value and the bucket sizes are kept in a Fenwick tree, so
+// adding a score, finding the rank of a score and fetching the entry at a given rank
+// all cost O(log maxScore) no matter how many games have been played. Within one
+// score, entries keep the order they were added (earlier games rank first).
+//
+// A leaderboard can sit on top of a mapped snapshot: snapshot entries are counted
+// into the tree one score run at a time and read from the mapping only when asked
+// for, so only scores added since the snapshot live on the heap.
+//
+// Heap entries are stored as int name ids (see LeaderboardColumns.Names) in one
+// primitive array per score, so each costs 4 bytes and every name is kept once.
+//
+// The tree and buckets are sized by the highest score, so scores are clamped to
+// 0..MAX_SCORE. A damaged or hand-edited file can then cost at most a few megabytes
+// of index, and can never ask for an array larger than Java allows.
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Leaderboard {
+    // 100,000 right answers in one round; far beyond any real game
+    public static final int MAX_SCORE = 1_000_000;
+
+    public static class Entry {
+        public final String name;
+        public final int score;
+
+        public Entry(String name, int score) {
+            this.name = name;
+            this.score = score;
+        }
+    }
+
+    private int[] tree = new int[65];                 // Fenwick tree over score counts, 1-based
+    private int[][] buckets = new int[64][];          // name ids per score, in arrival order
+    private int[] bucketSizes = new int[64];
+    private final LeaderboardColumns.Names names = new LeaderboardColumns.Names();
+    private int[] bestById = new int[16];             // best heap score per name id
+    private int size;
+    private LeaderboardSnapshot base;
+
+    public Leaderboard() {
+    }
+
+    // Snapshot entries rank ahead of later entries with the same score
+    public Leaderboard(LeaderboardSnapshot base) {
+        if (base == null || base.size() == 0) {
+            return;
+        }
+        this.base = base;
+        size = base.size();
+        int top = clampScore(base.score(0));
+        if (top >= buckets.length) {
+            int capacity = Integer.highestOneBit(top) << 1;
+            buckets = Arrays.copyOf(buckets, capacity);
+            bucketSizes = Arrays.copyOf(bucketSizes, capacity);
+        }
+        rebuildTree();
+    }
+
+    // Scores below zero are recorded as zero, and scores above MAX_SCORE as MAX_SCORE
+    public static int clampScore(int score) {
+        return Math.max(0, Math.min(score, MAX_SCORE));
+    }
+
+    public void add(String name, int score) {
+        score = clampScore(score);
+        if (score >= buckets.length) {
+            grow(score);
+        }
+        int id = names.idOf(name);
+        append(score, id);
+        addCount(score, 1);
+        if (id == bestById.length) {
+            bestById = Arrays.copyOf(bestById, id * 2);
+        }
+        bestById[id] = Math.max(bestById[id], score); // ids are handed out in order, new slots hold 0
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // 1-based rank of a score: one more than the number of strictly higher scores
+    public int rankOf(int score) {
+        score = Math.max(0, score);
+        return size - countAtMost(Math.min(score, buckets.length - 1)) + 1;
+    }
+
+    // Entry at a 0-based position, highest score first
+    public Entry get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Rank index " + index + " of " + size);
+        }
+        int score = lowestScoreWithAtLeast(size - index);
+        int within = index - (size - countAtMost(score));
+        if (base != null) {
+            int runStart = base.firstAtMost(score);
+            int runLength = base.firstAtMost(score - 1) - runStart;
+            if (within < runLength) {
+                return new Entry(base.name(runStart + within), score);
+            }
+            within -= runLength;
+        }
+        return new Entry(names.name(buckets[score][within]), score);
+    }
+
+    public List<Entry> top(int k) {
+        int n = Math.min(k, size);
+        List<Entry> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(get(i));
+        }
+        return result;
+    }
+
+    // Best score the player has reached, or -1 if they have no scores
+    public int bestScore(String name) {
+        int id = names.find(name);
+        int best = id < 0 ? -1 : bestById[id];
+        int fromBase = base == null ? -1 : base.bestScore(name);
+        return Math.max(best, fromBase);
+    }
+
+    // Position of the player's best entry, or -1 if they have no scores. The name index gives
+    // the best score and the tree gives where that score starts; only entries tied with it
+    // are looked at.
+    public int indexOf(String name) {
+        int best = bestScore(name);
+        if (best < 0) {
+            return -1;
+        }
+        for (int i = rankOf(best) - 1; i < size; i++) {
+            Entry entry = get(i);
+            if (entry.score != best) {
+                break;
+            }
+            if (entry.name.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void clear() {
+        tree = new int[65];
+        buckets = new int[64][];
+        bucketSizes = new int[64];
+        names.clear();
+        bestById = new int[16];
+        size = 0;
+        base = null;
+    }
+
+    private void append(int score, int id) {
+        int[] bucket = buckets[score];
+        int n = bucketSizes[score];
+        if (bucket == null) {
+            bucket = new int[4];
+            buckets[score] = bucket;
+        } else if (n == bucket.length) {
+            bucket = Arrays.copyOf(bucket, n * 2);
+            buckets[score] = bucket;
+        }
+        bucket[n] = id;
+        bucketSizes[score] = n + 1;
+    }
+
+    private void addCount(int score, int count) {
+        for (int i = score + 1; i < tree.length; i += i & -i) {
+            tree[i] += count;
+        }
+    }
+
+    // Number of entries with a score of at most the given value
+    private int countAtMost(int score) {
+        int count = 0;
+        for (int i = score + 1; i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    // Smallest score s such that countAtMost(s) >= target
+    private int lowestScoreWithAtLeast(int target) {
+        int pos = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            if (pos + step < tree.length && tree[pos + step] < target) {
+                pos += step;
+                target -= tree[pos];
+            }
+        }
+        return pos;
+    }
+
+    // Capacity stays a power of two; score is at most MAX_SCORE, so the shift cannot overflow
+    private void grow(int score) {
+        int capacity = Integer.highestOneBit(score) << 1;
+        buckets = Arrays.copyOf(buckets, capacity);
+        bucketSizes = Arrays.copyOf(bucketSizes, capacity);
+        rebuildTree();
+    }
+
+    // Counts bucket sizes and snapshot score runs (one run per distinct score) into a new tree
+    private void rebuildTree() {
+        int capacity = buckets.length;
+        tree = new int[capacity + 1];
+        for (int s = 0; s < capacity; s++) {
+            tree[s + 1] += bucketSizes[s];
+        }
+        if (base != null) {
+            int i = 0;
+            while (i < base.size()) {
+                int score = base.score(i);
+                int runEnd = base.firstAtMost(score - 1);
+                tree[clampScore(score) + 1] += runEnd - i;
+                i = runEnd;
+            }
+        }
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,323 @@
+// LeaderboardAnalytics.java - Reports over the whole persisted leaderboard history
+//
+// Usage: java LeaderboardAnalytics [file] [--players=20] [--parallelism=N]
+//
+// Computes per-player best and average scores, score percentiles and games per day.
+// The snapshot is read straight from its mapping in chunks of CHUNK records, split
+// across a ForkJoinPool, so the history never has to fit on the heap; only the log tail
+// and the per-player / per-day totals do. The journal compacts once its log reaches
+// 4096 records, so the tail is at most that plus one save batch, unless a compaction
+// failed and left a longer log behind. Percentiles are exact: the snapshot
+// is already sorted, so they come from binary searches rather than a pass over the data.
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class LeaderboardAnalytics {
+    private static final int CHUNK = 1 << 16;
+    private static final long DAY_MILLIS = 86_400_000L;
+    // Records migrated from the old format carry no timestamp
+    static final long UNDATED = Long.MIN_VALUE;
+
+    // The persisted records: the mapped snapshot plus whatever is still only in the log
+    public static class Dataset {
+        final LeaderboardSnapshot snapshot; // may be null
+        final LeaderboardColumns tail;
+
+        Dataset(LeaderboardSnapshot snapshot, LeaderboardColumns tail) {
+            this.snapshot = snapshot;
+            this.tail = tail;
+        }
+
+        public static Dataset open(String file) throws IOException {
+            Path current = LeaderboardJournal.currentSnapshot(file);
+            LeaderboardSnapshot snapshot = current == null ? null : LeaderboardSnapshot.map(current);
+            LeaderboardColumns tail = new LeaderboardColumns();
+            LeaderboardJournal.replayLog(file, snapshot == null ? 0 : snapshot.epoch(), tail::add);
+            return new Dataset(snapshot, tail);
+        }
+
+        public long size() {
+            return (snapshot == null ? 0 : snapshot.size()) + tail.size();
+        }
+
+        // Checks the snapshot against its checksum; a report reads every record, so it pays for this
+        public void verify() throws IOException {
+            if (snapshot != null) {
+                snapshot.verify();
+            }
+        }
+    }
+
+    public static class PlayerRow {
+        public final String name;
+        public final long games;
+        public final int best;
+        public final double average;
+
+        PlayerRow(String name, Totals totals) {
+            this.name = name;
+            this.games = totals.count;
+            this.best = totals.best;
+            this.average = (double) totals.sum / totals.count;
+        }
+    }
+
+    public static class DayRow {
+        public final LocalDate day; // null for undated records
+        public final long games;
+        public final double average;
+        public final int best;
+
+        DayRow(LocalDate day, Totals totals) {
+            this.day = day;
+            this.games = totals.count;
+            this.average = (double) totals.sum / totals.count;
+            this.best = totals.best;
+        }
+    }
+
+    public static class Report {
+        public long records;
+        public double mean;
+        public final double[] percentiles = {50, 75, 90, 99, 100};
+        public final int[] percentileScores = new int[percentiles.length];
+        public List<PlayerRow> players;  // best score first
+        public List<DayRow> days;        // oldest first, undated last
+        public int parallelism;
+        public long elapsedNanos;
+
+        public double recordsPerSecond() {
+            return elapsedNanos == 0 ? 0 : records * 1e9 / elapsedNanos;
+        }
+    }
+
+    // Count, sum and best of a group of scores
+    static final class Totals {
+        long count;
+        long sum;
+        int best = Integer.MIN_VALUE;
+
+        void add(int score) {
+            count++;
+            sum += score;
+            best = Math.max(best, score);
+        }
+
+        void add(Totals other) {
+            count += other.count;
+            sum += other.sum;
+            best = Math.max(best, other.best);
+        }
+    }
+
+    // Totals for one range of snapshot records; players are keyed by name table offset
+    // so names are only decoded once per player at the end
+    static final class Partial {
+        final HashMap<Integer, Totals> players = new HashMap<>();
+        final HashMap<Long, Totals> days = new HashMap<>();
+
+        void merge(Partial other) {
+            other.players.forEach((k, v) -> players.merge(k, v, (a, b) -> {
+                a.add(b);
+                return a;
+            }));
+            other.days.forEach((k, v) -> days.merge(k, v, (a, b) -> {
+                a.add(b);
+                return a;
+            }));
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient LeaderboardSnapshot snapshot;
+        private final int from;
+        private final int to;
+        private final long zoneOffset;
+
+        ChunkTask(LeaderboardSnapshot snapshot, int from, int to, long zoneOffset) {
+            this.snapshot = snapshot;
+            this.from = from;
+            this.to = to;
+            this.zoneOffset = zoneOffset;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from > CHUNK) {
+                int mid = (from + to) >>> 1;
+                ChunkTask right = new ChunkTask(snapshot, mid, to, zoneOffset);
+                right.fork();
+                Partial left = new ChunkTask(snapshot, from, mid, zoneOffset).compute();
+                left.merge(right.join());
+                return left;
+            }
+            Partial partial = new Partial();
+            for (int i = from; i < to; i++) {
+                int score = snapshot.score(i);
+                partial.players.computeIfAbsent(snapshot.nameOffset(i), k -> new Totals()).add(score);
+                partial.days.computeIfAbsent(day(snapshot.timestamp(i), zoneOffset), k -> new Totals()).add(score);
+            }
+            return partial;
+        }
+    }
+
+    public static Report analyze(Dataset data, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        // Days follow the current UTC offset, so a DST change can shift a few records by an hour
+        long zoneOffset = ZonedDateTime.now().getOffset().getTotalSeconds() * 1000L;
+        LeaderboardSnapshot snapshot = data.snapshot;
+        Partial partial = snapshot == null || snapshot.size() == 0
+                ? new Partial() : pool.invoke(new ChunkTask(snapshot, 0, snapshot.size(), zoneOffset));
+
+        HashMap<String, Totals> players = new HashMap<>();
+        for (Map.Entry<Integer, Totals> e : partial.players.entrySet()) {
+            players.merge(snapshot.nameAt(e.getKey()), e.getValue(), (a, b) -> {
+                a.add(b);
+                return a;
+            });
+        }
+        LeaderboardColumns tail = data.tail;
+        int[] tailScores = new int[tail.size()];
+        for (int i = 0; i < tail.size(); i++) {
+            int score = tail.score(i);
+            tailScores[i] = score;
+            players.computeIfAbsent(tail.name(i), k -> new Totals()).add(score);
+            partial.days.computeIfAbsent(day(tail.timestamp(i), zoneOffset), k -> new Totals()).add(score);
+        }
+        Arrays.sort(tailScores);
+
+        Report report = new Report();
+        report.records = data.size();
+        long sum = 0;
+        for (Totals t : players.values()) {
+            sum += t.sum;
+        }
+        report.mean = report.records == 0 ? 0 : (double) sum / report.records;
+        for (int p = 0; p < report.percentiles.length; p++) {
+            report.percentileScores[p] = scoreAtPercentile(snapshot, tailScores, report.percentiles[p]);
+        }
+
+        report.players = new ArrayList<>(players.size());
+        players.forEach((name, totals) -> report.players.add(new PlayerRow(name, totals)));
+        report.players.sort((a, b) -> a.best != b.best ? Integer.compare(b.best, a.best) : a.name.compareTo(b.name));
+
+        report.days = new ArrayList<>(partial.days.size());
+        Long[] dayKeys = partial.days.keySet().toArray(new Long[0]);
+        Arrays.sort(dayKeys, (a, b) -> a == UNDATED ? 1 : b == UNDATED ? -1 : Long.compare(a, b));
+        for (Long key : dayKeys) {
+            report.days.add(new DayRow(key == UNDATED ? null : LocalDate.ofEpochDay(key), partial.days.get(key)));
+        }
+        report.parallelism = pool.getParallelism();
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    // Local day number of a timestamp, or UNDATED
+    private static long day(long timestamp, long zoneOffset) {
+        return timestamp <= 0 ? UNDATED : Math.floorDiv(timestamp + zoneOffset, DAY_MILLIS);
+    }
+
+    // Smallest score s such that at least the given percentage of records score at most s
+    static int scoreAtPercentile(LeaderboardSnapshot snapshot, int[] sortedTail, double percentile) {
+        int snapshotSize = snapshot == null ? 0 : snapshot.size();
+        long n = (long) snapshotSize + sortedTail.length;
+        if (n == 0) {
+            return 0;
+        }
+        long wanted = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+        int lo = Integer.MAX_VALUE;
+        int hi = Integer.MIN_VALUE;
+        if (snapshotSize > 0) {
+            lo = snapshot.score(snapshotSize - 1);
+            hi = snapshot.score(0);
+        }
+        if (sortedTail.length > 0) {
+            lo = Math.min(lo, sortedTail[0]);
+            hi = Math.max(hi, sortedTail[sortedTail.length - 1]);
+        }
+        while (lo < hi) {
+            int mid = (int) (((long) lo + hi) >> 1);
+            long atMost = (snapshotSize == 0 ? 0 : snapshotSize - snapshot.firstAtMost(mid)) + countAtMost(sortedTail, mid);
+            if (atMost >= wanted) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private static int countAtMost(int[] sorted, int score) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] <= score) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    public static String format(Report report, int maxPlayers) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d scores, mean %.1f%n", report.records, report.mean));
+        sb.append("Percentiles:");
+        for (int p = 0; p < report.percentiles.length; p++) {
+            sb.append(String.format(" p%s=%d", trim(report.percentiles[p]), report.percentileScores[p]));
+        }
+        sb.append(String.format("%n%nPlayers (%d):%n", report.players.size()));
+        for (int i = 0; i < Math.min(maxPlayers, report.players.size()); i++) {
+            PlayerRow row = report.players.get(i);
+            sb.append(String.format("  %-20s best %6d  avg %8.1f  games %d%n", row.name, row.best, row.average, row.games));
+        }
+        sb.append(String.format("%nDaily activity:%n"));
+        for (DayRow row : report.days) {
+            sb.append(String.format("  %-10s games %8d  avg %8.1f  best %d%n",
+                    row.day == null ? "undated" : row.day.toString(), row.games, row.average, row.best));
+        }
+        sb.append(String.format("%nAnalysed in %.1f ms on %d threads (%.0f records/s)%n",
+                report.elapsedNanos / 1e6, report.parallelism, report.recordsPerSecond()));
+        return sb.toString();
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String file = "leaderboard.dat";
+        int maxPlayers = 20;
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        for (String arg : args) {
+            if (arg.startsWith("--players=")) {
+                maxPlayers = Integer.parseInt(arg.substring("--players=".length()));
+            } else if (arg.startsWith("--parallelism=")) {
+                parallelism = Integer.parseInt(arg.substring("--parallelism=".length()));
+            } else {
+                file = arg;
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            Dataset data = Dataset.open(file);
+            data.verify();
+            System.out.print(format(analyze(data, pool), maxPlayers));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
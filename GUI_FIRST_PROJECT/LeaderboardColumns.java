@@ -0,0 +1,158 @@
+// LeaderboardColumns.java - Column-oriented store for leaderboard history
+//
+// Instead of one object per score, each field lives in its own primitive column:
+//   scores      int
+//   name ids    int, indexes into a Names dictionary holding each distinct name once
+//   timestamps  long
+// Columns grow in fixed-size chunks, so adding never copies what is already stored
+// and a multi-million row history needs no single huge array. Only the first chunk
+// starts small and doubles, so a handful of rows (a write batch) stays cheap. One row costs 16 bytes
+// plus its share of the dictionary, against roughly 80 bytes for an entry object
+// with its own String.
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class LeaderboardColumns {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int MASK = CHUNK - 1;
+    private static final int FIRST_CHUNK = 16;
+
+    // Interned player names; each distinct name gets the next int id
+    public static final class Names {
+        private final HashMap<String, Integer> ids = new HashMap<>();
+        private final ArrayList<String> names = new ArrayList<>();
+
+        public int idOf(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                names.add(name);
+                ids.put(name, id);
+            }
+            return id;
+        }
+
+        // Id of a name already in the dictionary, or -1
+        public int find(String name) {
+            Integer id = ids.get(name);
+            return id == null ? -1 : id;
+        }
+
+        public String name(int id) {
+            return names.get(id);
+        }
+
+        public int size() {
+            return names.size();
+        }
+
+        public void clear() {
+            ids.clear();
+            names.clear();
+        }
+    }
+
+    private final Names names;
+    private int[][] scores = new int[1][];
+    private int[][] nameIds = new int[1][];
+    private long[][] timestamps = new long[1][];
+    private int size;
+
+    public LeaderboardColumns() {
+        this(new Names());
+    }
+
+    // Columns that share another store's dictionary
+    public LeaderboardColumns(Names names) {
+        this.names = names;
+    }
+
+    public void add(String name, int score, long timestamp) {
+        int chunk = size >>> CHUNK_BITS;
+        if (chunk == scores.length) {
+            scores = Arrays.copyOf(scores, chunk * 2);
+            nameIds = Arrays.copyOf(nameIds, chunk * 2);
+            timestamps = Arrays.copyOf(timestamps, chunk * 2);
+        }
+        int at = size & MASK;
+        if (scores[chunk] == null) {
+            int length = chunk == 0 ? FIRST_CHUNK : CHUNK;
+            scores[chunk] = new int[length];
+            nameIds[chunk] = new int[length];
+            timestamps[chunk] = new long[length];
+        } else if (at == scores[chunk].length) {
+            int length = Math.min(CHUNK, at * 2);
+            scores[chunk] = Arrays.copyOf(scores[chunk], length);
+            nameIds[chunk] = Arrays.copyOf(nameIds[chunk], length);
+            timestamps[chunk] = Arrays.copyOf(timestamps[chunk], length);
+        }
+        scores[chunk][at] = score;
+        nameIds[chunk][at] = names.idOf(name);
+        timestamps[chunk][at] = timestamp;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Names names() {
+        return names;
+    }
+
+    public int score(int row) {
+        return scores[row >>> CHUNK_BITS][row & MASK];
+    }
+
+    public int nameId(int row) {
+        return nameIds[row >>> CHUNK_BITS][row & MASK];
+    }
+
+    public String name(int row) {
+        return names.name(nameId(row));
+    }
+
+    public long timestamp(int row) {
+        return timestamps[row >>> CHUNK_BITS][row & MASK];
+    }
+
+    // Row numbers ordered highest score first, equal scores in insertion order. The sort
+    // runs on primitive keys (inverted score in the high half, row in the low half).
+    public int[] rowsByScore() {
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            long descending = (long) Integer.MAX_VALUE - score(i);
+            keys[i] = ((descending << 32) | i) ^ Long.MIN_VALUE;
+        }
+        Arrays.sort(keys);
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = (int) keys[i];
+        }
+        return rows;
+    }
+
+    // Reorders the rows into rowsByScore() order
+    public void sortByScore() {
+        int[] order = rowsByScore();
+        int[][] sortedScores = new int[scores.length][];
+        int[][] sortedIds = new int[scores.length][];
+        long[][] sortedTimestamps = new long[scores.length][];
+        for (int c = 0; c * CHUNK < size; c++) {
+            sortedScores[c] = new int[scores[c].length];
+            sortedIds[c] = new int[scores[c].length];
+            sortedTimestamps[c] = new long[scores[c].length];
+        }
+        for (int i = 0; i < size; i++) {
+            int from = order[i];
+            sortedScores[i >>> CHUNK_BITS][i & MASK] = score(from);
+            sortedIds[i >>> CHUNK_BITS][i & MASK] = nameId(from);
+            sortedTimestamps[i >>> CHUNK_BITS][i & MASK] = timestamp(from);
+        }
+        scores = sortedScores;
+        nameIds = sortedIds;
+        timestamps = sortedTimestamps;
+    }
+}
@@ -0,0 +1,542 @@
+// LeaderboardJournal.java - Append-only persistence for the ArithmeticGame leaderboard
+//
+// Files on disk:
+//   <file>.<epoch>  sorted, fixed-width snapshot read through a mapping (see LeaderboardSnapshot)
+//   <file>.log      append-only log: [magic][epoch] then records in arrival order
+//   log record  [int length][int crc32][int score][long timestamp][short nameLength][name bytes, UTF-8]
+//
+// Saving scores appends their records to the log with one write and one fsync per
+// batch, so it costs O(1) I/O no matter how long the history is. Every log record
+// carries a CRC32 of its contents; replay stops at the first record that is torn or
+// fails its checksum, and the snapshot keeps a CRC32 of its body in the header.
+// Once the log holds COMPACT_THRESHOLD records it is folded into a new sorted
+// snapshot. The snapshot remembers the epoch of the log it absorbed, so a crash between
+// writing the snapshot and resetting the log can never count the same scores twice.
+// Every compaction writes a new snapshot generation named after its epoch, through a
+// temp file that is only renamed to a name nothing else uses, and clear() writes an
+// empty one. The newest generation is the current one, so a crash leaves either the
+// old state or the new. A generation is never renamed over or truncated: it may still
+// be mapped (the game's Leaderboard keeps its mapping as a base), and Windows refuses
+// to replace or delete a mapped file. Older generations are deleted where the platform
+// allows it and otherwise on the next load. A snapshot at <file> itself, from before
+// generations were numbered, is read as the current one until the first compaction.
+// Scores are clamped to 0..Leaderboard.MAX_SCORE on the way in and out.
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+public class LeaderboardJournal implements Closeable {
+    // Receives records while loading
+    public interface Visitor {
+        void accept(String name, int score, long timestamp);
+    }
+
+    private static final int LOG_MAGIC = 0x4C424C32;        // "LBL2"
+    private static final int LEGACY_LOG_MAGIC = 0x4C424C31; // "LBL1", records without a checksum
+    private static final int LOG_HEADER = 4 + 8;
+    private static final int RECORD_FIXED = 4 + 4 + 8 + 2;  // crc + score + timestamp + name length
+    private static final int LEGACY_RECORD_FIXED = 4 + 8 + 2;
+    private static final int MAX_RECORD_BYTES = 4 + RECORD_FIXED + 1024;
+    static final int MAX_NAME_BYTES = 1024;
+    private static final int COMPACT_THRESHOLD = 4096;
+
+    private final Path snapshotPath;
+    private final Path logPath;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer batchBuffer = ByteBuffer.allocate(64 * MAX_RECORD_BYTES);
+    private FileChannel log;
+    private Path snapshotFile; // current generation, or null when there is none
+    private long verifiedEpoch = -1; // snapshot already checked against its checksum, or written here
+    private long epoch;
+    private int logRecords;
+
+    public LeaderboardJournal(String file) {
+        this.snapshotPath = Paths.get(file);
+        this.logPath = Paths.get(file + ".log");
+    }
+
+    // True when the snapshot is still the old ObjectOutputStream format. Once a numbered
+    // generation exists the old file has been migrated and is only waiting to be deleted.
+    public boolean isLegacySnapshot() throws IOException {
+        if (!Files.exists(snapshotPath) || Files.size(snapshotPath) < 2 || newestGeneration(snapshotPath) > 0) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(snapshotPath)) {
+            return in.read() == 0xAC && in.read() == 0xED;
+        }
+    }
+
+    // Maps the snapshot (null when there is none yet) and replays only the log into the visitor,
+    // cutting off any torn or corrupt record left by a crash. The snapshot's header and score
+    // range are checked, which costs the same for any size; its body checksum is left to
+    // verifySnapshot(). Throws when the snapshot cannot be trusted; nothing on disk is changed
+    // in that case.
+    public LeaderboardSnapshot load(Visitor visitor) throws IOException {
+        closeLog();
+        snapshotFile = currentSnapshot(snapshotPath);
+        LeaderboardSnapshot snapshot = snapshotFile == null ? null : LeaderboardSnapshot.map(snapshotFile);
+        epoch = snapshot == null ? 0 : snapshot.epoch();
+
+        long validEnd = LOG_HEADER;
+        logRecords = 0;
+        boolean replay = false;
+        boolean legacy = false;
+        if (Files.exists(logPath)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logPath)))) {
+                int magic = Files.size(logPath) >= LOG_HEADER ? in.readInt() : 0;
+                if (magic == LOG_MAGIC || magic == LEGACY_LOG_MAGIC) {
+                    long logEpoch = in.readLong();
+                    // An older epoch means the log was already folded into the snapshot
+                    if (logEpoch >= epoch) {
+                        replay = true;
+                        legacy = magic == LEGACY_LOG_MAGIC;
+                        epoch = logEpoch;
+                        long[] end = {LOG_HEADER};
+                        logRecords = readRecords(in, Integer.MAX_VALUE, legacy, visitor, end);
+                        validEnd = end[0];
+                    }
+                }
+            }
+        }
+
+        if (replay) {
+            log = FileChannel.open(logPath, StandardOpenOption.WRITE);
+            if (log.size() > validEnd) {
+                log.truncate(validEnd);
+                log.force(false);
+            }
+            log.position(validEnd);
+            if (legacy) {
+                // Later records will carry checksums, so fold the old-format log away first
+                compact(true);
+            }
+        } else {
+            resetLog();
+        }
+        deleteStaleSnapshots();
+        return snapshot;
+    }
+
+    // Checks the current snapshot against its body checksum. This reads the whole file, so
+    // loading leaves it out and AsyncLeaderboardStore runs it behind the load instead.
+    public void verifySnapshot() throws IOException {
+        Path current = currentSnapshot(snapshotPath);
+        if (current == null) {
+            return;
+        }
+        LeaderboardSnapshot snapshot = LeaderboardSnapshot.map(current);
+        if (snapshot.epoch() != verifiedEpoch) {
+            snapshot.verify();
+            verifiedEpoch = snapshot.epoch();
+        }
+    }
+
+    // The file holding the current snapshot of the given leaderboard, or null when there is none
+    public static Path currentSnapshot(String file) throws IOException {
+        return currentSnapshot(Paths.get(file));
+    }
+
+    private static Path currentSnapshot(Path snapshotPath) throws IOException {
+        long newest = newestGeneration(snapshotPath);
+        if (newest > 0) {
+            return generation(snapshotPath, newest);
+        }
+        return Files.exists(snapshotPath) ? snapshotPath : null;
+    }
+
+    // Read-only replay of the log records a snapshot with the given epoch has not absorbed;
+    // nothing is truncated, so it is safe to call while the game holds the journal open
+    public static int replayLog(String file, long snapshotEpoch, Visitor visitor) throws IOException {
+        Path logPath = Paths.get(file + ".log");
+        if (!Files.exists(logPath) || Files.size(logPath) < LOG_HEADER) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logPath)))) {
+            int magic = in.readInt();
+            if ((magic != LOG_MAGIC && magic != LEGACY_LOG_MAGIC) || in.readLong() < snapshotEpoch) {
+                return 0;
+            }
+            return readRecords(in, Integer.MAX_VALUE, magic == LEGACY_LOG_MAGIC, visitor, new long[] {LOG_HEADER});
+        }
+    }
+
+    public void append(String name, int score) throws IOException {
+        if (log == null) {
+            load((n, s, t) -> {});
+        }
+        batchBuffer.clear();
+        putRecord(batchBuffer, name, score, System.currentTimeMillis());
+        writeFully(batchBuffer);
+        log.force(false);
+        logRecords++;
+        compactIfDue();
+    }
+
+    // Appends a batch of records with a single write and a single fsync; the records are
+    // durable when this returns
+    public void append(LeaderboardColumns batch) throws IOException {
+        if (log == null) {
+            load((n, s, t) -> {});
+        }
+        if (batch.size() == 0) {
+            return;
+        }
+        batchBuffer.clear();
+        for (int i = 0; i < batch.size(); i++) {
+            if (batchBuffer.remaining() < MAX_RECORD_BYTES) {
+                writeFully(batchBuffer);
+            }
+            putRecord(batchBuffer, batch.name(i), batch.score(i), batch.timestamp(i));
+        }
+        writeFully(batchBuffer);
+        log.force(false);
+        logRecords += batch.size();
+        compactIfDue();
+    }
+
+    private void compactIfDue() throws IOException {
+        if (logRecords >= COMPACT_THRESHOLD) {
+            compact();
+        }
+    }
+
+    // Folds the log into a new sorted snapshot and starts an empty log
+    public void compact() throws IOException {
+        compact(false);
+    }
+
+    private void compact(boolean legacyLog) throws IOException {
+        LeaderboardColumns records = new LeaderboardColumns();
+        Path current = currentSnapshot(snapshotPath);
+        if (current != null) {
+            LeaderboardSnapshot snapshot = LeaderboardSnapshot.map(current);
+            // Never fold a damaged snapshot into one with a fresh, valid checksum. One this
+            // journal wrote or has already checked is not read a second time.
+            if (snapshot.epoch() != verifiedEpoch) {
+                snapshot.verify();
+            }
+            // Each distinct name is decoded once, not once per record
+            HashMap<Integer, String> namesByOffset = new HashMap<>();
+            for (int i = 0; i < snapshot.size(); i++) {
+                String name = namesByOffset.computeIfAbsent(snapshot.nameOffset(i), snapshot::nameAt);
+                records.add(name, snapshot.score(i), snapshot.timestamp(i));
+            }
+        }
+        if (log != null && Files.exists(logPath)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logPath)))) {
+                in.readInt();
+                in.readLong();
+                readRecords(in, logRecords, legacyLog, records::add, new long[1]);
+            }
+        }
+        replace(records);
+    }
+
+    // Writes the given records as the whole leaderboard, e.g. when migrating an old file
+    public void replace(LeaderboardColumns records) throws IOException {
+        int[] order = records.rowsByScore();
+        // Newer than the log and every generation on disk, even if this journal was never loaded
+        long next = Math.max(Math.max(epoch, logEpochOnDisk()), newestGeneration(snapshotPath)) + 1;
+        Path target = generation(snapshotPath, next);
+        Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        // Name table: each distinct name once, with the player's best score (their first record),
+        // located through the name id instead of a lookup by string
+        int[] offsetById = new int[records.names().size()];
+        Arrays.fill(offsetById, -1);
+        ByteArrayOutputStream nameTable = new ByteArrayOutputStream();
+        DataOutputStream names = new DataOutputStream(nameTable);
+        int[] offsets = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            int id = records.nameId(order[i]);
+            if (offsetById[id] < 0) {
+                byte[] bytes = nameBytes(records.names().name(id));
+                offsetById[id] = names.size();
+                names.writeInt(Leaderboard.clampScore(records.score(order[i])));
+                names.writeShort(bytes.length);
+                names.write(bytes);
+            }
+            offsets[i] = offsetById[id];
+        }
+
+        CRC32 bodyCrc = new CRC32();
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fos, bodyCrc), 1 << 16))) {
+            out.writeInt(LeaderboardSnapshot.MAGIC);
+            out.writeLong(next);
+            out.writeInt(order.length);
+            out.writeLong(LeaderboardSnapshot.HEADER_BYTES + (long) order.length * LeaderboardSnapshot.RECORD_BYTES);
+            out.writeLong(0); // checksum, filled in below
+            out.flush();
+            bodyCrc.reset();
+            for (int i = 0; i < order.length; i++) {
+                out.writeInt(Leaderboard.clampScore(records.score(order[i])));
+                out.writeInt(offsets[i]);
+                out.writeLong(records.timestamp(order[i]));
+            }
+            nameTable.writeTo(out);
+            out.flush();
+            ByteBuffer checksum = ByteBuffer.allocate(8).putLong(LeaderboardSnapshot.checksumField(bodyCrc.getValue()));
+            checksum.flip();
+            fos.getChannel().write(checksum, LeaderboardSnapshot.CHECKSUM_POSITION);
+            fos.getFD().sync();
+        }
+        moveToNewName(tmp, target);
+        syncDirectory();
+        epoch = next;
+        verifiedEpoch = next;
+        snapshotFile = target;
+        resetLog();
+        deleteStaleSnapshots();
+    }
+
+    // Removes every stored score by writing an empty generation. Its epoch is newer than the
+    // log's, so a crash before the log is reset cannot bring old scores back. Works without
+    // reading the old snapshot, so a damaged leaderboard can always be cleared.
+    public void clear() throws IOException {
+        closeLog();
+        replace(new LeaderboardColumns());
+    }
+
+    // Moves every snapshot generation and the log aside as <name>.corrupt-<millis> so a fresh
+    // leaderboard can start without destroying them (and without an older generation taking
+    // over); returns the current snapshot's new path, or null if there was none
+    public Path quarantine() throws IOException {
+        closeLog();
+        String suffix = ".corrupt-" + System.currentTimeMillis();
+        Path current = currentSnapshot(snapshotPath);
+        List<Path> snapshots = new ArrayList<>();
+        for (long generation : generations(snapshotPath)) {
+            snapshots.add(generation(snapshotPath, generation));
+        }
+        if (Files.exists(snapshotPath)) {
+            snapshots.add(snapshotPath);
+        }
+        Path moved = null;
+        for (Path snapshot : snapshots) {
+            Path target = snapshot.resolveSibling(snapshot.getFileName() + suffix);
+            Files.move(snapshot, target);
+            if (snapshot.equals(current)) {
+                moved = target;
+            }
+        }
+        snapshotFile = null;
+        if (Files.exists(logPath)) {
+            Path movedLog = logPath.resolveSibling(logPath.getFileName() + suffix);
+            Files.move(logPath, movedLog);
+            if (moved == null) {
+                moved = movedLog;
+            }
+        }
+        syncDirectory();
+        epoch = 0;
+        logRecords = 0;
+        return moved;
+    }
+
+    public void flush() throws IOException {
+        if (log != null) {
+            log.force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        closeLog();
+    }
+
+    private void closeLog() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    private void resetLog() throws IOException {
+        closeLog();
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(LOG_HEADER);
+        header.putInt(LOG_MAGIC).putLong(epoch).flip();
+        while (header.hasRemaining()) {
+            log.write(header);
+        }
+        log.force(false);
+        logRecords = 0;
+    }
+
+    private void writeFully(ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            log.write(buf);
+        }
+        buf.clear();
+    }
+
+    // Epoch in the log header, or 0 when there is no readable log
+    private long logEpochOnDisk() throws IOException {
+        if (!Files.exists(logPath) || Files.size(logPath) < LOG_HEADER) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(logPath))) {
+            in.readInt();
+            return Math.max(0, in.readLong());
+        }
+    }
+
+    private static Path generation(Path snapshotPath, long epoch) {
+        return snapshotPath.resolveSibling(snapshotPath.getFileName() + "." + epoch);
+    }
+
+    // Epochs of the numbered snapshot files next to the given path, in no particular order
+    private static List<Long> generations(Path snapshotPath) throws IOException {
+        String prefix = snapshotPath.getFileName() + ".";
+        List<Long> epochs = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(snapshotPath.toAbsolutePath().getParent())) {
+            for (Path path : dir) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(prefix) && isEpoch(name, prefix.length())) {
+                    epochs.add(Long.parseLong(name.substring(prefix.length())));
+                }
+            }
+        }
+        return epochs;
+    }
+
+    private static boolean isEpoch(String name, int from) {
+        if (from == name.length() || name.length() - from > 18) {
+            return false;
+        }
+        for (int i = from; i < name.length(); i++) {
+            if (name.charAt(i) < '0' || name.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Highest generation epoch on disk, or 0 when there is none
+    private static long newestGeneration(Path snapshotPath) throws IOException {
+        long newest = 0;
+        for (long generation : generations(snapshotPath)) {
+            newest = Math.max(newest, generation);
+        }
+        return newest;
+    }
+
+    // Deletes every generation except the current one, and the un-numbered file once a
+    // generation has replaced it. A file that is still mapped cannot be deleted on Windows;
+    // it is left for the next load to try again.
+    private void deleteStaleSnapshots() throws IOException {
+        for (long generation : generations(snapshotPath)) {
+            Path path = generation(snapshotPath, generation);
+            if (!path.equals(snapshotFile)) {
+                deleteIfPossible(path);
+            }
+        }
+        if (snapshotFile != null && !snapshotFile.equals(snapshotPath)) {
+            deleteIfPossible(snapshotPath);
+        }
+    }
+
+    private static void deleteIfPossible(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException stillInUse) {
+            // Retried on the next load
+        }
+    }
+
+    // Makes a rename durable; not every platform can open a directory, so this is best effort
+    private void syncDirectory() {
+        Path dir = snapshotPath.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException | UnsupportedOperationException ignored) {
+            // e.g. Windows
+        }
+    }
+
+    // Reads up to max well-formed records; end[0] is advanced past each one. Stops at a torn
+    // record or, for checksummed logs, at the first record whose CRC does not match.
+    private static int readRecords(DataInputStream in, int max, boolean legacy, Visitor visitor, long[] end) throws IOException {
+        int fixed = legacy ? LEGACY_RECORD_FIXED : RECORD_FIXED;
+        byte[] body = new byte[RECORD_FIXED + MAX_NAME_BYTES];
+        ByteBuffer record = ByteBuffer.wrap(body);
+        CRC32 crc = new CRC32();
+        int read = 0;
+        try {
+            while (read < max) {
+                int length = in.readInt();
+                if (length < fixed || length > fixed + MAX_NAME_BYTES) {
+                    break;
+                }
+                in.readFully(body, 0, length);
+                record.clear();
+                if (!legacy) {
+                    crc.reset();
+                    crc.update(body, 4, length - 4);
+                    if (record.getInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                }
+                int score = Leaderboard.clampScore(record.getInt());
+                long timestamp = record.getLong();
+                int nameLength = record.getShort() & 0xFFFF;
+                if (nameLength != length - fixed) {
+                    break;
+                }
+                visitor.accept(new String(body, record.position(), nameLength, StandardCharsets.UTF_8), score, timestamp);
+                end[0] += 4 + length;
+                read++;
+            }
+        } catch (EOFException torn) {
+            // A partially written record at the tail is dropped
+        }
+        return read;
+    }
+
+    private void putRecord(ByteBuffer buf, String name, int score, long timestamp) {
+        byte[] bytes = nameBytes(name);
+        int start = buf.position();
+        buf.putInt(RECORD_FIXED + bytes.length);
+        buf.putInt(0); // crc, filled in below
+        buf.putInt(Leaderboard.clampScore(score));
+        buf.putLong(timestamp);
+        buf.putShort((short) bytes.length);
+        buf.put(bytes);
+        crc.reset();
+        crc.update(buf.array(), start + 8, buf.position() - start - 8);
+        buf.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private static byte[] nameBytes(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= MAX_NAME_BYTES) {
+            return bytes;
+        }
+        // Cut before the character that would straddle the limit, never inside it
+        int length = MAX_NAME_BYTES;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    // Renames to a path that must not exist yet, so no mapped file is ever replaced
+    private static void moveToNewName(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+// LeaderboardSnapshot.java - Read-only, memory-mapped view of a sorted leaderboard snapshot
+//
+// File layout (all big-endian):
+//   header   [int magic][long epoch][int count][long namesOffset][long checksum]  32 bytes
+//   records  count x [int score][int nameOffset][long timestamp]                   16 bytes each
+//   names    [int bestScore][short length][UTF-8 bytes] per distinct player name
+//
+// Records are sorted highest score first, so ranks can be read straight from the
+// mapping without turning every record into an object. Each distinct name is stored
+// once together with that player's best score. The checksum field holds a CRC32 of
+// everything after the header with bit 32 set; snapshots written before it was added
+// have 0 there and are not checked.
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+public class LeaderboardSnapshot {
+    static final int MAGIC = 0x4C425332; // "LBS2"
+    static final int HEADER_BYTES = 32;
+    static final int RECORD_BYTES = 16;
+    static final int CHECKSUM_POSITION = 24;
+    private static final long CHECKSUM_PRESENT = 1L << 32;
+    // Records are mapped in segments; a multiple of RECORD_BYTES so no record straddles two
+    private static final int SEGMENT_RECORDS = 1 << 26;
+
+    private final long epoch;
+    private final int count;
+    private final long checksum;
+    private final MappedByteBuffer[] segments;
+    private final MappedByteBuffer names;
+    private HashMap<String, Integer> bestScores;
+
+    private LeaderboardSnapshot(long epoch, int count, long checksum, MappedByteBuffer[] segments, MappedByteBuffer names) {
+        this.epoch = epoch;
+        this.count = count;
+        this.checksum = checksum;
+        this.segments = segments;
+        this.names = names;
+    }
+
+    public static LeaderboardSnapshot map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Truncated leaderboard snapshot: " + file);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Unrecognised leaderboard file: " + file);
+            }
+            long epoch = header.getLong(4);
+            int count = header.getInt(12);
+            long namesOffset = header.getLong(16);
+            long checksum = header.getLong(CHECKSUM_POSITION);
+            if (count < 0 || namesOffset != HEADER_BYTES + (long) count * RECORD_BYTES
+                    || namesOffset > fileSize || fileSize - namesOffset > Integer.MAX_VALUE) {
+                throw new IOException("Corrupt leaderboard snapshot header: " + file);
+            }
+
+            MappedByteBuffer[] segments = new MappedByteBuffer[(count + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS];
+            for (int s = 0; s < segments.length; s++) {
+                long first = (long) s * SEGMENT_RECORDS;
+                long records = Math.min(SEGMENT_RECORDS, count - first);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + first * RECORD_BYTES, records * RECORD_BYTES);
+            }
+            MappedByteBuffer names = channel.map(FileChannel.MapMode.READ_ONLY, namesOffset, fileSize - namesOffset);
+            // One entry per player, so walking the table is cheap; its entries must end exactly
+            // where the file does or a name read could run past the mapping
+            int pos = 0;
+            while (pos <= names.limit() - 6) {
+                pos += 6 + (names.getShort(pos + 4) & 0xFFFF);
+            }
+            if (pos != names.limit()) {
+                throw new IOException("Corrupt leaderboard snapshot name table: " + file);
+            }
+            // The mappings stay valid after the channel is closed
+            LeaderboardSnapshot snapshot = new LeaderboardSnapshot(epoch, count, checksum, segments, names);
+            // Records are sorted, so the first and last bound every score; the journal never
+            // writes one outside 0..Leaderboard.MAX_SCORE
+            if (count > 0 && (snapshot.score(0) > Leaderboard.MAX_SCORE || snapshot.score(count - 1) < 0)) {
+                throw new IOException("Leaderboard snapshot holds scores out of range: " + file);
+            }
+            return snapshot;
+        }
+    }
+
+    // Header value for a body with the given CRC32
+    static long checksumField(long crc) {
+        return CHECKSUM_PRESENT | crc;
+    }
+
+    // Re-reads the whole file against its stored checksum. The CRC runs over the mapping at
+    // memory speed but is still O(file size), so it is kept off the load path (see
+    // LeaderboardJournal.verifySnapshot) and run where every record is read anyway.
+    public void verify() throws IOException {
+        if ((checksum & CHECKSUM_PRESENT) == 0) {
+            return;
+        }
+        CRC32 crc = new CRC32();
+        for (MappedByteBuffer segment : segments) {
+            crc.update(segment.duplicate().clear());
+        }
+        crc.update(names.duplicate().clear());
+        if (checksumField(crc.getValue()) != checksum) {
+            throw new IOException("Leaderboard snapshot failed its checksum (damaged or partly written)");
+        }
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int score(int index) {
+        return segments[index / SEGMENT_RECORDS].getInt((index % SEGMENT_RECORDS) * RECORD_BYTES);
+    }
+
+    public long timestamp(int index) {
+        return segments[index / SEGMENT_RECORDS].getLong((index % SEGMENT_RECORDS) * RECORD_BYTES + 8);
+    }
+
+    public String name(int index) {
+        return nameAt(nameOffset(index));
+    }
+
+    // Position of the record's name in the name table; equal for every record of one player
+    public int nameOffset(int index) {
+        return segments[index / SEGMENT_RECORDS].getInt((index % SEGMENT_RECORDS) * RECORD_BYTES + 4);
+    }
+
+    // First index whose score is at most the given score (size() if none)
+    public int firstAtMost(int score) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (score(mid) > score) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // Best score per player, decoded from the name table on first use
+    public int bestScore(String name) {
+        if (bestScores == null) {
+            HashMap<String, Integer> map = new HashMap<>();
+            int pos = 0;
+            while (pos < names.limit()) {
+                map.put(nameAt(pos), names.getInt(pos));
+                pos += 6 + (names.getShort(pos + 4) & 0xFFFF);
+            }
+            bestScores = map;
+        }
+        Integer best = bestScores.get(name);
+        return best == null ? -1 : best;
+    }
+
+    // Record offsets are not checked at map time, which would read every record; one that
+    // points outside the name table throws IllegalStateException here instead
+    public String nameAt(int offset) {
+        if (offset < 0 || offset > names.limit() - 6) {
+            throw new IllegalStateException("Leaderboard snapshot name offset out of range: " + offset);
+        }
+        int length = names.getShort(offset + 4) & 0xFFFF;
+        if (length > names.limit() - offset - 6) {
+            throw new IllegalStateException("Leaderboard snapshot name runs past the table: " + offset);
+        }
+        byte[] bytes = new byte[length];
+        names.get(offset + 6, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,70 @@
+// LeaderboardTableModel.java - Read-only JTable model over a Leaderboard
+//
+// Nothing is copied or formatted up front: JTable only asks for the cells that are
+// scrolled into view, and each one is read from the leaderboard's index on demand,
+// so opening the view costs the same for ten scores as for ten million. The row count
+// is fixed when the model is created; scores added later show up in the next view.
+import javax.swing.table.AbstractTableModel;
+
+public class LeaderboardTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final String[] COLUMNS = {"Rank", "Player", "Score"};
+
+    private final Leaderboard leaderboard;
+    private final int rows;
+    // The three cells of a row are asked for one after another; fetch the entry once
+    private int cachedRow = -1;
+    private Leaderboard.Entry cachedEntry;
+
+    public LeaderboardTableModel(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+        this.rows = leaderboard.size();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 1 ? String.class : Integer.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        if (column == 0) {
+            return row + 1;
+        }
+        if (row != cachedRow) {
+            try {
+                cachedEntry = leaderboard.get(row);
+            } catch (IllegalStateException e) {
+                // A damaged snapshot can point a record outside its name table. The row is
+                // left blank; the check behind the load reports the file and sets it aside.
+                cachedEntry = null;
+            }
+            cachedRow = row;
+        }
+        if (cachedEntry == null) {
+            return null;
+        }
+        return column == 1 ? cachedEntry.name : cachedEntry.score;
+    }
+
+    // Row of the player's best score, or -1 if they have none in this view
+    public int rowOf(String name) {
+        int row = leaderboard.indexOf(name);
+        return row < rows ? row : -1;
+    }
+}
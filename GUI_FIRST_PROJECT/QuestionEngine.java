@@ -0,0 +1,197 @@
+// QuestionEngine.java - Headless question generator for the ArithmeticGame
+//
+// Questions are packed into a single long so generating one allocates nothing:
+//   [5 selection][3 operator][20 first operand][16 second operand][20 answer]
+// where selection = mode * 4 + difficulty records what the question was generated for.
+// An engine is not thread-safe; give each thread its own engine via split().
+// ADAPTIVE questions take their ranges and operation mix from an AdaptiveDifficulty
+// shared by all engines split from the same one.
+import java.util.SplittableRandom;
+
+public class QuestionEngine {
+    public enum Operation {
+        ADDITION("+"), SUBTRACTION("-"), MULTIPLICATION("×"), DIVISION("÷"), MODULO("%");
+
+        private static final Operation[] ALL = values();
+        public final String symbol;
+
+        Operation(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public static Operation fromIndex(int index) {
+            return ALL[index];
+        }
+    }
+
+    // Modes follow the order of the operation combo box
+    public enum Mode {
+        ADDITION(Operation.ADDITION), SUBTRACTION(Operation.SUBTRACTION),
+        MULTIPLICATION(Operation.MULTIPLICATION), DIVISION(Operation.DIVISION),
+        MODULO(Operation.MODULO), MIXED(null);
+
+        private static final Mode[] ALL = values();
+        public final Operation operation; // null when every operation is mixed in
+
+        Mode(Operation operation) {
+            this.operation = operation;
+        }
+
+        public static Mode fromIndex(int index) {
+            return ALL[index];
+        }
+    }
+
+    // Difficulties follow the order of the difficulty combo box; ADAPTIVE ranges come from
+    // the engine's AdaptiveDifficulty (MEDIUM's are used if it has none)
+    public enum Difficulty {
+        EASY(10, 10), MEDIUM(50, 25), HARD(100, 50), ADAPTIVE(50, 25);
+
+        private static final Difficulty[] ALL = values();
+        public final int maxFirst;
+        public final int maxSecond;
+
+        Difficulty(int maxFirst, int maxSecond) {
+            this.maxFirst = maxFirst;
+            this.maxSecond = maxSecond;
+        }
+
+        public static Difficulty fromIndex(int index) {
+            return ALL[index];
+        }
+    }
+
+    // Parallel primitive arrays filled by generate(Mode, Difficulty, Batch)
+    public static class Batch {
+        public final int[] first;
+        public final int[] second;
+        public final int[] answer;
+        public final byte[] operator;
+
+        public Batch(int size) {
+            first = new int[size];
+            second = new int[size];
+            answer = new int[size];
+            operator = new byte[size];
+        }
+
+        public int size() {
+            return answer.length;
+        }
+    }
+
+    private static final int OPERATIONS = 5;
+
+    private final SplittableRandom random;
+    private final AdaptiveDifficulty adaptive;
+
+    public QuestionEngine() {
+        this(new SplittableRandom(), null);
+    }
+
+    public QuestionEngine(long seed) {
+        this(new SplittableRandom(seed), null);
+    }
+
+    public QuestionEngine(AdaptiveDifficulty adaptive) {
+        this(new SplittableRandom(), adaptive);
+    }
+
+    private QuestionEngine(SplittableRandom random, AdaptiveDifficulty adaptive) {
+        this.random = random;
+        this.adaptive = adaptive;
+    }
+
+    // Independent engine for another thread
+    public QuestionEngine split() {
+        return new QuestionEngine(random.split(), adaptive);
+    }
+
+    public long next(Mode mode, Difficulty difficulty) {
+        int selection = mode.ordinal() * 4 + difficulty.ordinal();
+        if (difficulty == Difficulty.ADAPTIVE && adaptive != null) {
+            Operation operation = mode.operation != null ? mode.operation : adaptive.pickOperation(random);
+            return next(selection, operation.ordinal(), adaptive.maxFirst(operation), adaptive.maxSecond(operation));
+        }
+        int operator = mode.operation == null ? random.nextInt(OPERATIONS) : mode.operation.ordinal();
+        return next(selection, operator, difficulty.maxFirst, difficulty.maxSecond);
+    }
+
+    private long next(int selection, int operator, int maxFirst, int maxSecond) {
+        int num1 = random.nextInt(maxFirst) + 1;
+        int num2 = random.nextInt(maxSecond) + 1;
+
+        switch (operator) {
+            case 1: // Subtraction; ensure positive result
+                return num1 < num2
+                        ? pack(selection, operator, num2, num1, num2 - num1)
+                        : pack(selection, operator, num1, num2, num1 - num2);
+            case 2: // Multiplication
+                return pack(selection, operator, num1, num2, num1 * num2);
+            case 3: // Division; ensure clean division
+                return pack(selection, operator, num1 * num2, num2, num1);
+            case 4: // Modulo
+                return pack(selection, operator, num1, num2, num1 % num2);
+            case 0: // Addition
+            default:
+                return pack(selection, operator, num1, num2, num1 + num2);
+        }
+    }
+
+    public void generate(Mode mode, Difficulty difficulty, long[] out, int offset, int count) {
+        for (int i = offset, end = offset + count; i < end; i++) {
+            out[i] = next(mode, difficulty);
+        }
+    }
+
+    public void generate(Mode mode, Difficulty difficulty, Batch batch) {
+        for (int i = 0, n = batch.size(); i < n; i++) {
+            long question = next(mode, difficulty);
+            batch.first[i] = firstOperand(question);
+            batch.second[i] = secondOperand(question);
+            batch.answer[i] = answer(question);
+            batch.operator[i] = (byte) operatorIndex(question);
+        }
+    }
+
+    public static int selection(long question) {
+        return (int) (question >>> 59);
+    }
+
+    public static int selection(Mode mode, Difficulty difficulty) {
+        return mode.ordinal() * 4 + difficulty.ordinal();
+    }
+
+    public static Difficulty difficulty(long question) {
+        return Difficulty.fromIndex(selection(question) & 3);
+    }
+
+    public static Operation operator(long question) {
+        return Operation.fromIndex(operatorIndex(question));
+    }
+
+    public static int firstOperand(long question) {
+        return (int) (question >>> 36) & 0xFFFFF;
+    }
+
+    public static int secondOperand(long question) {
+        return (int) (question >>> 20) & 0xFFFF;
+    }
+
+    public static int answer(long question) {
+        return (int) question & 0xFFFFF;
+    }
+
+    // Display form, e.g. "12 × 4 = ?"
+    public static String format(long question) {
+        return firstOperand(question) + " " + operator(question).symbol + " " + secondOperand(question) + " = ?";
+    }
+
+    private static int operatorIndex(long question) {
+        return (int) (question >>> 56) & 0x7;
+    }
+
+    private static long pack(int selection, int operator, int first, int second, int answer) {
+        return (long) selection << 59 | (long) operator << 56 | (long) first << 36 | (long) second << 20 | answer;
+    }
+}
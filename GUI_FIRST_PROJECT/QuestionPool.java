@@ -0,0 +1,90 @@
+// QuestionPool.java - Pre-generates ArithmeticGame questions on a background thread
+//
+// A producer thread fills a single-producer/single-consumer ring buffer with packed
+// questions (see QuestionEngine) for the currently selected mode and difficulty.
+// The UI thread only pops a primitive and never waits on the producer: if the ring
+// is ever empty it generates the question itself.
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class QuestionPool {
+    private static final int CAPACITY = 256; // power of two
+
+    private final long[] ring = new long[CAPACITY];
+    private final AtomicLong head = new AtomicLong(); // next slot to read, owned by the consumer
+    private final AtomicLong tail = new AtomicLong(); // next slot to write, owned by the producer
+    private final QuestionEngine consumerEngine;
+    private final QuestionEngine producerEngine;
+    private volatile QuestionEngine.Mode mode = QuestionEngine.Mode.ADDITION;
+    private volatile QuestionEngine.Difficulty difficulty = QuestionEngine.Difficulty.EASY;
+    private volatile boolean running;
+    private Thread producer;
+
+    public QuestionPool(QuestionEngine engine) {
+        this.consumerEngine = engine;
+        this.producerEngine = engine.split();
+    }
+
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        producer = new Thread(this::produce, "question-producer");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (producer != null) {
+            LockSupport.unpark(producer);
+        }
+    }
+
+    // Called by the consumer; questions already queued for another selection are skipped
+    public void select(QuestionEngine.Mode mode, QuestionEngine.Difficulty difficulty) {
+        this.difficulty = difficulty;
+        this.mode = mode;
+    }
+
+    // Drops everything queued so far, e.g. once adaptive ranges have moved; consumer only
+    public void discardQueued() {
+        head.lazySet(tail.get());
+        LockSupport.unpark(producer);
+    }
+
+    // Next question for the current selection; never blocks
+    public long next() {
+        QuestionEngine.Mode wantedMode = mode;
+        QuestionEngine.Difficulty wantedDifficulty = difficulty;
+        int wanted = QuestionEngine.selection(wantedMode, wantedDifficulty);
+        long h = head.get();
+        try {
+            while (h < tail.get()) {
+                long question = ring[(int) h & (CAPACITY - 1)];
+                head.lazySet(++h);
+                if (QuestionEngine.selection(question) == wanted) {
+                    return question;
+                }
+            }
+            return consumerEngine.next(wantedMode, wantedDifficulty);
+        } finally {
+            // A slot was freed (or the ring ran dry), so let the producer refill
+            LockSupport.unpark(producer);
+        }
+    }
+
+    private void produce() {
+        while (running) {
+            long t = tail.get();
+            if (t - head.get() >= CAPACITY) {
+                // Full: wait until the consumer has drained some questions
+                LockSupport.parkNanos(this, 10_000_000L);
+                continue;
+            }
+            ring[(int) t & (CAPACITY - 1)] = producerEngine.next(mode, difficulty);
+            tail.lazySet(t + 1);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+// Telemetry.java - Session instrumentation for the ArithmeticGame
+//
+// Keeps one LatencyHistogram of player response times per operation and difficulty,
+// and one per instrumented hot path. Recording never allocates. The figures can be
+// written to CSV or JSON and are published as the JMX MBean ArithmeticGame:type=Telemetry
+// (visible in JConsole / VisualVM). All values are recorded in nanoseconds.
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class Telemetry implements TelemetryMBean {
+    // Internal code paths that are timed
+    public enum Timing {
+        GENERATE_QUESTION("generateQuestion"),
+        PAINT("paintComponent"),
+        SAVE_LEADERBOARD("saveLeaderboard"),
+        LOAD_LEADERBOARD("loadLeaderboard"),
+        WINDOW_VISIBLE("windowVisible");
+
+        public final String label;
+
+        Timing(String label) {
+            this.label = label;
+        }
+    }
+
+    static final String OBJECT_NAME = "ArithmeticGame:type=Telemetry";
+    private static final String CSV_HEADER = "metric,count,min_ns,p50_ns,p90_ns,p99_ns,max_ns,mean_ns";
+    private static final int DIFFICULTIES = QuestionEngine.Difficulty.values().length;
+
+    private final LatencyHistogram[] responses =
+            new LatencyHistogram[QuestionEngine.Operation.values().length * DIFFICULTIES];
+    private final LatencyHistogram[] timings = new LatencyHistogram[Timing.values().length];
+    private final long startedAt = System.nanoTime();
+    private ObjectName registeredAs;
+
+    public Telemetry() {
+        for (int i = 0; i < responses.length; i++) {
+            responses[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < timings.length; i++) {
+            timings[i] = new LatencyHistogram();
+        }
+    }
+
+    public void recordResponse(QuestionEngine.Operation operation, QuestionEngine.Difficulty difficulty, long nanos) {
+        response(operation, difficulty).record(nanos);
+    }
+
+    public void recordTiming(Timing timing, long nanos) {
+        timings[timing.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram response(QuestionEngine.Operation operation, QuestionEngine.Difficulty difficulty) {
+        return responses[operation.ordinal() * DIFFICULTIES + difficulty.ordinal()];
+    }
+
+    public LatencyHistogram timing(Timing timing) {
+        return timings[timing.ordinal()];
+    }
+
+    // Publishes this instance over JMX; failure only costs the MBean, never the game
+    public void register() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+                registeredAs = name;
+            }
+        } catch (JMException e) {
+            System.err.println("Telemetry MBean not registered: " + e);
+        }
+    }
+
+    public void unregister() {
+        if (registeredAs == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredAs);
+        } catch (JMException e) {
+            // Already gone
+        }
+        registeredAs = null;
+    }
+
+    public void writeCsv(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        for (String row : rows()) {
+            lines.add(row);
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    public void writeJson(Path file) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"sessionSeconds\": ").append(getSessionSeconds()).append(",\n  \"metrics\": [");
+        boolean first = true;
+        for (Metric metric : metrics()) {
+            LatencyHistogram h = metric.histogram;
+            json.append(first ? "\n" : ",\n");
+            json.append(String.format(Locale.ROOT,
+                    "    {\"metric\": \"%s\", \"count\": %d, \"minNs\": %d, \"p50Ns\": %d, \"p90Ns\": %d,"
+                            + " \"p99Ns\": %d, \"maxNs\": %d, \"meanNs\": %.1f}",
+                    metric.name, h.count(), h.min(), h.valueAtPercentile(50), h.valueAtPercentile(90),
+                    h.valueAtPercentile(99), h.max(), h.mean()));
+            first = false;
+        }
+        json.append("\n  ]\n}\n");
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Writes <base>.csv and <base>.json
+    public void export(String base) throws IOException {
+        writeCsv(Paths.get(base + ".csv"));
+        writeJson(Paths.get(base + ".json"));
+    }
+
+    @Override
+    public long getSessionSeconds() {
+        return (System.nanoTime() - startedAt) / 1_000_000_000L;
+    }
+
+    @Override
+    public long getAnswerCount() {
+        long n = 0;
+        for (LatencyHistogram h : responses) {
+            n += h.count();
+        }
+        return n;
+    }
+
+    // Across all operations and difficulties, so it is taken from a merged copy
+    @Override
+    public double getResponseMedianMillis() {
+        return allResponses().valueAtPercentile(50) / 1e6;
+    }
+
+    @Override
+    public double getResponseP99Millis() {
+        return allResponses().valueAtPercentile(99) / 1e6;
+    }
+
+    @Override
+    public double getGenerateQuestionP99Micros() {
+        return timing(Timing.GENERATE_QUESTION).valueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getPaintP99Micros() {
+        return timing(Timing.PAINT).valueAtPercentile(99) / 1e3;
+    }
+
+    @Override
+    public double getSaveLeaderboardP99Millis() {
+        return timing(Timing.SAVE_LEADERBOARD).valueAtPercentile(99) / 1e6;
+    }
+
+    @Override
+    public String[] getSummary() {
+        return rows().toArray(new String[0]);
+    }
+
+    @Override
+    public void exportCsv(String file) throws IOException {
+        writeCsv(Paths.get(file));
+    }
+
+    @Override
+    public void exportJson(String file) throws IOException {
+        writeJson(Paths.get(file));
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram h : responses) {
+            h.reset();
+        }
+        for (LatencyHistogram h : timings) {
+            h.reset();
+        }
+    }
+
+    private LatencyHistogram allResponses() {
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram h : responses) {
+            merged.add(h);
+        }
+        return merged;
+    }
+
+    private List<String> rows() {
+        List<String> rows = new ArrayList<>();
+        for (Metric metric : metrics()) {
+            LatencyHistogram h = metric.histogram;
+            rows.add(String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%d,%.1f", metric.name, h.count(), h.min(),
+                    h.valueAtPercentile(50), h.valueAtPercentile(90), h.valueAtPercentile(99), h.max(), h.mean()));
+        }
+        return rows;
+    }
+
+    // Response recorders that saw no answers are left out; timings are always listed
+    private List<Metric> metrics() {
+        List<Metric> metrics = new ArrayList<>();
+        for (QuestionEngine.Operation operation : QuestionEngine.Operation.values()) {
+            for (QuestionEngine.Difficulty difficulty : QuestionEngine.Difficulty.values()) {
+                LatencyHistogram h = response(operation, difficulty);
+                if (h.count() > 0) {
+                    metrics.add(new Metric("response." + operation.name() + "." + difficulty.name(), h));
+                }
+            }
+        }
+        for (Timing timing : Timing.values()) {
+            metrics.add(new Metric("timing." + timing.label, timing(timing)));
+        }
+        return metrics;
+    }
+
+    private static class Metric {
+        final String name;
+        final LatencyHistogram histogram;
+
+        Metric(String name, LatencyHistogram histogram) {
+            this.name = name;
+            this.histogram = histogram;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+// TelemetryMBean.java - JMX view of the ArithmeticGame session telemetry
+public interface TelemetryMBean {
+    long getSessionSeconds();
+
+    long getAnswerCount();
+
+    double getResponseMedianMillis();
+
+    double getResponseP99Millis();
+
+    double getGenerateQuestionP99Micros();
+
+    double getPaintP99Micros();
+
+    double getSaveLeaderboardP99Millis();
+
+    // One line per recorder, same columns as the CSV export
+    String[] getSummary();
+
+    void exportCsv(String file) throws java.io.IOException;
+
+    void exportJson(String file) throws java.io.IOException;
+
+    void reset();
+}
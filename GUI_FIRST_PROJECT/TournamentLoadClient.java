@@ -0,0 +1,168 @@
+// TournamentLoadClient.java - Load generator for TournamentServer
+//
+// Usage: java TournamentLoadClient [--host=127.0.0.1] [--port=5050] [--sessions=1000]
+//            [--concurrency=500] [--round=2000] [--mode=MIXED] [--difficulty=MEDIUM]
+//            [--accuracy=0.9] [--think=0]
+//
+// Plays the given number of sessions, at most `concurrency` at a time, each on its own
+// (virtual where available) thread. Every bot answers as fast as it can, or after
+// `think` ms, and gets the answer right with probability `accuracy`. The round trip
+// from sending an answer to receiving the verdict is recorded in a LatencyHistogram.
+// Prints sessions/sec, answers/sec and the round-trip percentiles at the end.
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TournamentLoadClient {
+    private final String host;
+    private final int port;
+    private final String mode;
+    private final String difficulty;
+    private final long roundMillis;
+    private final double accuracy;
+    private final long thinkMillis;
+    private final LatencyHistogram roundTrips = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    TournamentLoadClient(String host, int port, String mode, String difficulty, long roundMillis,
+                         double accuracy, long thinkMillis) {
+        this.host = host;
+        this.port = port;
+        this.mode = mode;
+        this.difficulty = difficulty;
+        this.roundMillis = roundMillis;
+        this.accuracy = accuracy;
+        this.thinkMillis = thinkMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = "127.0.0.1";
+        int port = TournamentServer.DEFAULT_PORT;
+        int sessions = 1000;
+        int concurrency = 500;
+        long round = 2000;
+        String mode = "MIXED";
+        String difficulty = "MEDIUM";
+        double accuracy = 0.9;
+        long think = 0;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? arg : arg.substring(0, eq);
+            String value = eq < 0 ? "" : arg.substring(eq + 1);
+            switch (key) {
+                case "--host": host = value; break;
+                case "--port": port = Integer.parseInt(value); break;
+                case "--sessions": sessions = Integer.parseInt(value); break;
+                case "--concurrency": concurrency = Integer.parseInt(value); break;
+                case "--round": round = Long.parseLong(value); break;
+                case "--mode": mode = value; break;
+                case "--difficulty": difficulty = value; break;
+                case "--accuracy": accuracy = Double.parseDouble(value); break;
+                case "--think": think = Long.parseLong(value); break;
+                default:
+                    System.err.println("Unknown option: " + arg);
+                    return;
+            }
+        }
+        new TournamentLoadClient(host, port, mode, difficulty, round, accuracy, think).run(sessions, concurrency);
+    }
+
+    void run(int sessions, int concurrency) throws InterruptedException {
+        ExecutorService executor = TournamentServer.newSessionExecutor("tournament-bot");
+        Semaphore slots = new Semaphore(concurrency);
+        long start = System.nanoTime();
+        for (int i = 0; i < sessions; i++) {
+            slots.acquire();
+            int id = i;
+            executor.execute(() -> {
+                try {
+                    play("bot" + id, new SplittableRandom(id));
+                    completed.increment();
+                } catch (IOException | RuntimeException e) {
+                    failed.increment();
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+        slots.acquire(concurrency);
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        double seconds = elapsed / 1e9;
+        long answers = roundTrips.count();
+        System.out.printf("sessions=%d failed=%d elapsed=%.2fs sessions/s=%.1f answers=%d answers/s=%.0f%n",
+                completed.sum(), failed.sum(), seconds, completed.sum() / seconds, answers, answers / seconds);
+        System.out.printf("answer round trip (us): p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                roundTrips.valueAtPercentile(50) / 1e3, roundTrips.valueAtPercentile(90) / 1e3,
+                roundTrips.valueAtPercentile(99) / 1e3, roundTrips.valueAtPercentile(99.9) / 1e3,
+                roundTrips.max() / 1e3);
+    }
+
+    private void play(String name, SplittableRandom random) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), 10_000);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            out.write("JOIN " + name + " " + mode + " " + difficulty + " " + roundMillis + "\n");
+            out.flush();
+
+            long sentAt = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("R ")) {
+                    roundTrips.record(System.nanoTime() - sentAt);
+                } else if (line.startsWith("Q ")) {
+                    int answer = solve(line);
+                    if (random.nextDouble() >= accuracy) {
+                        answer++;
+                    }
+                    if (thinkMillis > 0) {
+                        sleep(thinkMillis);
+                    }
+                    out.write("A " + answer + "\n");
+                    sentAt = System.nanoTime();
+                    out.flush();
+                } else if (line.startsWith("END ")) {
+                    return;
+                } else {
+                    throw new IOException("Server said: " + line);
+                }
+            }
+            throw new EOFException("Connection closed before END");
+        }
+    }
+
+    // "Q <first> <operator> <second>"
+    private static int solve(String line) {
+        String[] parts = line.split(" ");
+        int first = Integer.parseInt(parts[1]);
+        int second = Integer.parseInt(parts[3]);
+        switch (parts[2]) {
+            case "-": return first - second;
+            case "×": return first * second;
+            case "÷": return first / second;
+            case "%": return first % second;
+            case "+":
+            default: return first + second;
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+}
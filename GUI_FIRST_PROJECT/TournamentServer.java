@@ -0,0 +1,276 @@
+// TournamentServer.java - Headless multi-player ArithmeticGame server over localhost TCP
+//
+// Usage: java TournamentServer [port]
+//
+// Every connection is one player session running on its own thread: a virtual thread
+// when the JVM has them (Java 21+), otherwise a small-stack platform thread. All
+// sessions draw questions from one engine (each session gets its own split, since an
+// engine is not thread-safe) and post final scores to one shared leaderboard.
+//
+// Line protocol (UTF-8, one message per line):
+//   client  JOIN <name> [mode] [difficulty] [roundMillis]   mode/difficulty as in QuestionEngine
+//   server  Q <first> <operator> <second>                   e.g. "Q 12 × 4"
+//   client  A <answer>
+//   server  R <1|0> <score>                                 followed by the next Q
+//   client  QUIT                                             optional; ends the round early
+//   server  END <score> <rank>                               once the round is over
+//   server  ERR <message>
+// A client line longer than MAX_LINE_CHARS (256) closes the connection without a reply.
+// Scoring matches the desktop game: +10 for a right answer, -5 (never below 0) for a wrong one.
+// A round also ends once the score reaches Leaderboard.MAX_SCORE, the most the board records.
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TournamentServer implements Closeable {
+    static final int DEFAULT_PORT = 5050;
+    private static final long DEFAULT_ROUND_MILLIS = 30_000;
+    private static final long MAX_ROUND_MILLIS = 3_600_000;
+    private static final int BACKLOG = 4096;
+    // Longest message a client may send; a longer line ends the session
+    static final int MAX_LINE_CHARS = 256;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = newSessionExecutor("tournament-session");
+    private final QuestionEngine engine = new QuestionEngine();
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final LongAdder sessionsStarted = new LongAdder();
+    private final LongAdder sessionsFinished = new LongAdder();
+    private final LongAdder answers = new LongAdder();
+    private volatile boolean running = true;
+
+    public TournamentServer(int port) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Accepts connections until close() is called
+    public void serve() throws IOException {
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                if (!running) {
+                    return;
+                }
+                throw e;
+            }
+            sessions.execute(() -> session(socket));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        sessions.shutdownNow();
+        try {
+            sessions.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long sessionsStarted() {
+        return sessionsStarted.sum();
+    }
+
+    public long sessionsFinished() {
+        return sessionsFinished.sum();
+    }
+
+    public long answers() {
+        return answers.sum();
+    }
+
+    private void session(Socket socket) {
+        sessionsStarted.increment();
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            s.setTcpNoDelay(true);
+            play(s, in, out);
+        } catch (IOException e) {
+            // The player disconnected; nothing to report back
+        } finally {
+            sessionsFinished.increment();
+        }
+    }
+
+    private void play(Socket socket, BufferedReader in, Writer out) throws IOException {
+        String line = readLine(in);
+        String[] join = line == null ? new String[0] : line.trim().split("\\s+");
+        if (join.length < 2 || !"JOIN".equals(join[0])) {
+            send(out, "ERR expected JOIN <name> [mode] [difficulty] [roundMillis]");
+            return;
+        }
+        String name = join[1];
+        QuestionEngine.Mode mode;
+        QuestionEngine.Difficulty difficulty;
+        long roundMillis;
+        try {
+            mode = join.length > 2 ? QuestionEngine.Mode.valueOf(join[2].toUpperCase(Locale.ROOT)) : QuestionEngine.Mode.MIXED;
+            difficulty = join.length > 3
+                    ? QuestionEngine.Difficulty.valueOf(join[3].toUpperCase(Locale.ROOT)) : QuestionEngine.Difficulty.MEDIUM;
+            roundMillis = join.length > 4 ? Long.parseLong(join[4]) : DEFAULT_ROUND_MILLIS;
+        } catch (IllegalArgumentException e) {
+            send(out, "ERR bad JOIN: " + line);
+            return;
+        }
+        if (roundMillis <= 0 || roundMillis > MAX_ROUND_MILLIS) {
+            send(out, "ERR roundMillis must be between 1 and " + MAX_ROUND_MILLIS);
+            return;
+        }
+
+        QuestionEngine questions = newEngine();
+        GameClock clock = new GameClock(roundMillis * 1_000_000L);
+        clock.start();
+        int score = 0;
+        long question = questions.next(mode, difficulty);
+        out.write(questionLine(question));
+        out.flush();
+
+        while (!clock.isExpired()) {
+            // Stop waiting for an answer once the round is over
+            socket.setSoTimeout((int) Math.max(1, (clock.remainingNanos() + 999_999) / 1_000_000));
+            try {
+                line = readLine(in);
+            } catch (SocketTimeoutException e) {
+                break;
+            }
+            if (line == null) {
+                return;
+            }
+            if ("QUIT".equals(line) || clock.isExpired()) {
+                break;
+            }
+            if (!line.startsWith("A ")) {
+                send(out, "ERR expected A <answer>");
+                continue;
+            }
+            int answer;
+            try {
+                answer = Integer.parseInt(line.substring(2).trim());
+            } catch (NumberFormatException e) {
+                send(out, "ERR not a number: " + line.substring(2));
+                continue;
+            }
+            boolean correct = answer == QuestionEngine.answer(question);
+            score = correct ? score + 10 : Math.max(0, score - 5);
+            answers.increment();
+            if (score >= Leaderboard.MAX_SCORE) {
+                send(out, (correct ? "R 1 " : "R 0 ") + score);
+                break;
+            }
+            question = questions.next(mode, difficulty);
+            out.write(correct ? "R 1 " : "R 0 ");
+            out.write(Integer.toString(score));
+            out.write('\n');
+            out.write(questionLine(question));
+            out.flush();
+        }
+
+        send(out, "END " + score + " " + record(name, score));
+    }
+
+    // Leaderboard is single-threaded, so sessions take turns on it; this happens once per round
+    private int record(String name, int score) {
+        synchronized (leaderboard) {
+            leaderboard.add(name, score);
+            return leaderboard.rankOf(score);
+        }
+    }
+
+    private synchronized QuestionEngine newEngine() {
+        return engine.split();
+    }
+
+    // Top entries as "rank. name score" lines
+    public String standings(int k) {
+        StringBuilder sb = new StringBuilder();
+        synchronized (leaderboard) {
+            int rank = 1;
+            for (Leaderboard.Entry entry : leaderboard.top(k)) {
+                sb.append(rank++).append(". ").append(entry.name).append(' ').append(entry.score).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String questionLine(long question) {
+        return "Q " + QuestionEngine.firstOperand(question) + " " + QuestionEngine.operator(question).symbol
+                + " " + QuestionEngine.secondOperand(question) + "\n";
+    }
+
+    // Like BufferedReader.readLine() for "\n" or "\r\n" endings, but stops reading once
+    // the line passes MAX_LINE_CHARS, so a client cannot make the session buffer without limit
+    static String readLine(Reader in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                return line.length() == 0 ? null : line.toString();
+            }
+            if (line.length() >= MAX_LINE_CHARS) {
+                throw new IOException("Line longer than " + MAX_LINE_CHARS + " characters");
+            }
+            line.append((char) c);
+        }
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return line.substring(0, end);
+    }
+
+    private static void send(Writer out, String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+    }
+
+    // One thread per task: virtual threads where the JVM has them, otherwise daemon platform
+    // threads with a small stack so thousands of sessions still fit
+    static ExecutorService newSessionExecutor(String name) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(null, r, name + "-" + count.incrementAndGet(), 256 * 1024);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        TournamentServer server = new TournamentServer(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            System.out.printf("%d sessions, %d answers%n", server.sessionsFinished(), server.answers());
+            System.out.print(server.standings(10));
+        }));
+        System.out.println("Tournament server listening on 127.0.0.1:" + server.port());
+        server.serve();
+    }
+}